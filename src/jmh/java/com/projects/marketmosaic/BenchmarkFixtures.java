@@ -0,0 +1,90 @@
+package com.projects.marketmosaic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.marketmosaic.common.config.ZooKeeperConfig;
+import com.projects.marketmosaic.config.security.CustomUserDetails;
+import com.projects.marketmosaic.entity.UserEntity;
+import com.projects.marketmosaic.service.RevocationStore;
+import com.projects.marketmosaic.service.impl.RevocationJournal;
+import com.projects.marketmosaic.service.impl.RevocationMetrics;
+import com.projects.marketmosaic.service.impl.TokenBlackListServiceImpl;
+import com.projects.marketmosaic.utils.CookieUtils;
+import com.projects.marketmosaic.utils.JWTUtils;
+import com.projects.marketmosaic.utils.jwt.JwtSigningKeys;
+import com.projects.marketmosaic.utils.jwt.TokenMinter;
+import com.projects.marketmosaic.utils.jwt.TokenProfile;
+import com.projects.marketmosaic.utils.jwt.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Builds the token components outside of Spring, wired the way the application context does.
+ */
+public final class BenchmarkFixtures {
+    public static final String COOKIE_NAME = "JWT_SESSION";
+
+    private BenchmarkFixtures() {
+    }
+
+    public static JWTUtils jwtUtils(long cacheSize) {
+        return jwtUtils(cacheSize, TokenProfile.STANDARD);
+    }
+
+    public static JWTUtils jwtUtils(long cacheSize, TokenProfile profile) {
+        ZooKeeperConfig zooKeeperConfig = mock(ZooKeeperConfig.class);
+        when(zooKeeperConfig.getStringValueByKey("JWT_SECRET")).thenReturn("benchmark-secret-benchmark-secret-0123456789");
+        when(zooKeeperConfig.getStringValueByKey("JWT_EXPIRATION")).thenReturn("900000");
+
+        @SuppressWarnings("unchecked")
+        ObjectProvider<CuratorFramework> curatorProvider = mock(ObjectProvider.class);
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), cacheSize, Duration.ofMinutes(5));
+        JwtSigningKeys signingKeys = new JwtSigningKeys(zooKeeperConfig, tokenCache, new ObjectMapper(),
+                curatorProvider, "HS256");
+
+        JWTUtils jwtUtils = new JWTUtils(zooKeeperConfig, tokenCache, signingKeys, new TokenMinter(signingKeys));
+        ReflectionTestUtils.setField(jwtUtils, "profile", profile);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    // Local revocation table only, the Redis round trips and the journal are not part of the lookup path
+    public static TokenBlackListServiceImpl tokenBlackListService() {
+        return tokenBlackListService(false, false);
+    }
+
+    public static TokenBlackListServiceImpl tokenBlackListService(boolean offHeap, boolean bloomFilter) {
+        return new TokenBlackListServiceImpl(mock(RevocationStore.class), new RevocationJournal(""), new RevocationMetrics(),
+                Duration.ofMinutes(15), 10, offHeap, bloomFilter, 4, 100_000, 0.001);
+    }
+
+    public static CookieUtils cookieUtils() {
+        CookieUtils cookieUtils = new CookieUtils();
+        ReflectionTestUtils.setField(cookieUtils, "jwtCookieName", COOKIE_NAME);
+        return cookieUtils;
+    }
+
+    public static UserEntity user() {
+        UserEntity user = new UserEntity();
+        user.setId(48213L);
+        user.setUsername("jane.doe");
+        user.setEmail("jane.doe@marketmosaic.example.com");
+        user.setName("Jane Doe");
+        user.setRole("USER");
+        return user;
+    }
+
+    public static CustomUserDetails userDetails(UserEntity user) {
+        return CustomUserDetails.builder()
+                .userId(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.projects.marketmosaic.config.security;
+
+import com.projects.marketmosaic.EmbeddedRedis;
+import com.projects.marketmosaic.utils.AuthRedisManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link DistributedRateLimiter#tryAcquire} against a local Redis for a key limited to
+ * 1M requests a second, so the limit itself is rarely what answers. A batch ratio of 0 sends every
+ * request to Redis; {@code localOnly} is the same call with distributed limits disabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DistributedRateLimiterBenchmark {
+    private static final int MAX_REQUESTS = 1_000_000;
+    private static final Duration PERIOD = Duration.ofSeconds(1);
+
+    @Param({"0", "0.01", "0.05"})
+    private double batchRatio;
+
+    private EmbeddedRedis redis;
+    private DistributedRateLimiter distributed;
+    private DistributedRateLimiter local;
+
+    @Setup
+    public void setUp() {
+        try {
+            redis = EmbeddedRedis.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start Redis", e);
+        }
+        // A generous timeout, a slow first script load must not switch the limiter to local limits
+        distributed = new DistributedRateLimiter(new RateLimiter(), null,
+                new AuthRedisManager(redis.redisTemplate()), false, true,
+                batchRatio, Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(5), 1);
+        local = new DistributedRateLimiter(new RateLimiter(), null, null, false, false,
+                batchRatio, Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(5), 1);
+        distributed.tryAcquire("client", MAX_REQUESTS, PERIOD);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        distributed.close();
+        local.close();
+        redis.close();
+    }
+
+    @Benchmark
+    public long distributed() {
+        return distributed.tryAcquire("client", MAX_REQUESTS, PERIOD);
+    }
+
+    @Benchmark
+    public long localOnly() {
+        return local.tryAcquire("client", MAX_REQUESTS, PERIOD);
+    }
+}
@@ -0,0 +1,55 @@
+package com.projects.marketmosaic.config.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.marketmosaic.BenchmarkFixtures;
+import com.projects.marketmosaic.entity.UserEntity;
+import com.projects.marketmosaic.service.impl.TokenBlackListServiceImpl;
+import com.projects.marketmosaic.utils.JWTUtils;
+import com.projects.marketmosaic.utils.TokenValidator;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One authenticated request through {@link JWTFilter#doFilterInternal} in stateless mode, so no
+ * repository is involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JWTFilterBenchmark {
+    private JWTFilter filter;
+    private Cookie sessionCookie;
+
+    @Setup
+    public void setUp() {
+        JWTUtils jwtUtils = BenchmarkFixtures.jwtUtils(10_000);
+        TokenBlackListServiceImpl tokenBlackListService = BenchmarkFixtures.tokenBlackListService();
+        filter = new JWTFilter(jwtUtils, new TokenValidator(jwtUtils, tokenBlackListService),
+                new CustomUserDetailsService(null), BenchmarkFixtures.cookieUtils(), new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "stateless", true);
+
+        UserEntity user = BenchmarkFixtures.user();
+        sessionCookie = new Cookie(BenchmarkFixtures.COOKIE_NAME,
+                jwtUtils.generateToken(BenchmarkFixtures.userDetails(user), user));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilterInternal() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/jane.doe");
+        request.setCookies(sessionCookie);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilterInternal(request, response, new MockFilterChain());
+        SecurityContextHolder.clearContext();
+        return response;
+    }
+}
@@ -0,0 +1,91 @@
+package com.projects.marketmosaic.config.security;
+
+import com.projects.marketmosaic.EmbeddedRedis;
+import com.projects.marketmosaic.utils.AuthRedisManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link LoginAttemptTracker} against a local Redis, next to the command sequences the
+ * tracker used before it kept one hash per user, replayed through the same template: INCR and two
+ * EXPIREs per failure, and two GETs of an ISO date string to check a locked account.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LoginAttemptTrackerBenchmark {
+    private static final String ATTEMPTS_KEY_PREFIX = "login:attempts:";
+    private static final String LOCKOUT_KEY_PREFIX = "login:lockout:";
+    private static final int LOCKOUT_MINUTES = 30;
+
+    private EmbeddedRedis redis;
+    private StringRedisTemplate redisTemplate;
+    private LoginAttemptTracker tracker;
+
+    @Setup
+    public void setUp() {
+        try {
+            redis = EmbeddedRedis.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start Redis", e);
+        }
+        redisTemplate = redis.redisTemplate();
+        // Failures are counted but never lock, so every call takes the counting path
+        AuthRedisManager redisManager = new AuthRedisManager(redisTemplate);
+        tracker = new LoginAttemptTracker(redisManager, Integer.MAX_VALUE, LOCKOUT_MINUTES);
+        new LoginAttemptTracker(redisManager, 1, LOCKOUT_MINUTES).recordFailedLogin("locked");
+        redisTemplate.opsForValue().set(LOCKOUT_KEY_PREFIX + "locked",
+                LocalDateTime.now().plusMinutes(LOCKOUT_MINUTES).format(DateTimeFormatter.ISO_DATE_TIME));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        redis.close();
+    }
+
+    @Benchmark
+    public LoginAttemptTracker.LoginAttempts failedLogin() {
+        return tracker.recordFailedLogin("failing");
+    }
+
+    @Benchmark
+    public Long failedLoginReplayed() {
+        Long attempts = redisTemplate.opsForValue().increment(ATTEMPTS_KEY_PREFIX + "failing");
+        redisTemplate.expire(ATTEMPTS_KEY_PREFIX + "failing", Duration.ofMinutes(LOCKOUT_MINUTES));
+        redisTemplate.expire(LOCKOUT_KEY_PREFIX + "failing", Duration.ofMinutes(LOCKOUT_MINUTES));
+        return attempts;
+    }
+
+    @Benchmark
+    public LoginAttemptTracker.LoginAttempts checkLocked() {
+        return tracker.check("locked");
+    }
+
+    // isAccountLocked, then getLockoutTime for the message
+    @Benchmark
+    public LocalDateTime checkLockedReplayed() {
+        LocalDateTime lockedUntil = LocalDateTime.parse(redisTemplate.opsForValue().get(LOCKOUT_KEY_PREFIX + "locked"),
+                DateTimeFormatter.ISO_DATE_TIME);
+        if (!LocalDateTime.now().isBefore(lockedUntil)) {
+            return null;
+        }
+        return LocalDateTime.parse(redisTemplate.opsForValue().get(LOCKOUT_KEY_PREFIX + "locked"),
+                DateTimeFormatter.ISO_DATE_TIME);
+    }
+
+    @Benchmark
+    public LoginAttemptTracker.LoginAttempts checkUnlocked() {
+        return tracker.check("unlocked");
+    }
+
+    @Benchmark
+    public String checkUnlockedReplayed() {
+        return redisTemplate.opsForValue().get(LOCKOUT_KEY_PREFIX + "unlocked");
+    }
+}
@@ -0,0 +1,51 @@
+package com.projects.marketmosaic.config.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of {@link RateLimiter#isAllowed} with every thread on its own key, the per-client
+ * case, and with all threads on one key. Compare the thread counts for scaling; it needs as many
+ * cores as threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RateLimiterBenchmark {
+    private static final Duration PERIOD = Duration.ofSeconds(1);
+    private static final int MAX_REQUESTS = 1_000;
+
+    private final RateLimiter rateLimiter = new RateLimiter();
+    private final AtomicInteger callers = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Caller {
+        private String key;
+
+        @Setup
+        public void setUp(RateLimiterBenchmark benchmark) {
+            key = "client-" + benchmark.callers.incrementAndGet();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean ownKey1Thread(Caller caller) {
+        return rateLimiter.isAllowed(caller.key, MAX_REQUESTS, PERIOD);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean ownKey4Threads(Caller caller) {
+        return rateLimiter.isAllowed(caller.key, MAX_REQUESTS, PERIOD);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean sharedKey4Threads() {
+        return rateLimiter.isAllowed("client", MAX_REQUESTS, PERIOD);
+    }
+}
@@ -0,0 +1,75 @@
+package com.projects.marketmosaic.config.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One request from each of a million distinct keys limited to 10 a minute, through the exact
+ * per-key {@link RateLimiter} and through {@link SketchRateLimiter} at two widths. Read
+ * {@code bytesPerKey} for the retained heap, {@code sketchBytes} for what the sketch accounts for
+ * and {@code refused} for requests turned away although no key went past its limit; the time is
+ * for all the calls, so divide it by the keys for the time per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SketchRateLimiterBenchmark {
+    public enum Limiter { EXACT_MAP, SKETCH_2_16, SKETCH_2_18 }
+
+    private static final int MAX_REQUESTS = 10;
+    private static final Duration PERIOD = Duration.ofMinutes(1);
+
+    @Param({"1000000"})
+    private int keys;
+
+    @Param
+    private Limiter limiter;
+
+    private Object retained;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerKey;
+        public long sketchBytes;
+        public long refused;
+    }
+
+    @TearDown(Level.Invocation)
+    public void release() {
+        retained = null;
+    }
+
+    @Benchmark
+    public void fill(Footprint footprint) {
+        long before = usedHeap();
+        long refused = 0;
+        if (limiter == Limiter.EXACT_MAP) {
+            RateLimiter rateLimiter = new RateLimiter();
+            for (int i = 0; i < keys; i++) {
+                refused += rateLimiter.tryAcquire("login:" + i, MAX_REQUESTS, PERIOD) == 0 ? 0 : 1;
+            }
+            retained = rateLimiter;
+        } else {
+            SketchRateLimiter rateLimiter = new SketchRateLimiter(limiter == Limiter.SKETCH_2_16 ? 1 << 16 : 1 << 18, 1024, 0.5);
+            for (int i = 0; i < keys; i++) {
+                refused += rateLimiter.tryAcquire("login:" + i, MAX_REQUESTS, PERIOD) == 0 ? 0 : 1;
+            }
+            retained = rateLimiter;
+            footprint.sketchBytes = rateLimiter.memoryBytes();
+        }
+        footprint.bytesPerKey = (usedHeap() - before) / keys;
+        footprint.refused = refused;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,75 @@
+package com.projects.marketmosaic.service.impl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup restore of the revocation table from the local journal, from a compacted snapshot
+ * and from an uncompacted log of the same entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class RevocationJournalBenchmark {
+    public enum Source { SNAPSHOT, LOG }
+
+    @Param({"1000000"})
+    private int revokedTokens;
+
+    @Param
+    private Source source;
+
+    private Path dir;
+    private RevocationJournal journal;
+
+    @Setup(Level.Trial)
+    public void write() throws IOException {
+        dir = Files.createTempDirectory("revocation-journal");
+        long now = System.currentTimeMillis();
+        RevocationJournal writer = new RevocationJournal(dir.toString());
+        writer.load(now, (high, low, expiresAt) -> { });
+        SplittableRandom random = new SplittableRandom(42);
+        if (source == Source.SNAPSHOT) {
+            writer.compact(now, consumer -> {
+                for (int i = 0; i < revokedTokens; i++) {
+                    consumer.accept(random.nextLong(), random.nextLong(), now + 900_000);
+                }
+            });
+        } else {
+            for (int i = 0; i < revokedTokens; i++) {
+                writer.append(random.nextLong(), random.nextLong(), now + 900_000);
+            }
+        }
+        writer.close();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeJournal() {
+        journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public RevocationTable restore() throws IOException {
+        journal = new RevocationJournal(dir.toString());
+        RevocationTable table = RevocationTable.create(false);
+        journal.load(System.currentTimeMillis(), table::put);
+        return table;
+    }
+}
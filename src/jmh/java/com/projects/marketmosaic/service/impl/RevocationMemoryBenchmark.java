@@ -0,0 +1,87 @@
+package com.projects.marketmosaic.service.impl;
+
+import com.projects.marketmosaic.BenchmarkFixtures;
+import com.projects.marketmosaic.entity.UserEntity;
+import com.projects.marketmosaic.utils.JWTUtils;
+import com.projects.marketmosaic.utils.jwt.TokenId;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retained heap per revoked token: the token string keyed map used before revocations were keyed
+ * by token id, against the on-heap and off-heap {@link RevocationTable}. Read the
+ * {@code bytesPerEntry} counter for the heap and {@code tableBytesPerEntry} for what a table
+ * accounts for, native memory included; the time is only how long filling the structure took.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RevocationMemoryBenchmark {
+    public enum Layout { TOKEN_STRING_MAP, TOKEN_ID_TABLE, OFF_HEAP_TOKEN_ID_TABLE }
+
+    @Param({"1000000"})
+    private int revokedTokens;
+
+    @Param
+    private Layout layout;
+
+    private JWTUtils jwtUtils;
+    private UserEntity user;
+    private UserDetails userDetails;
+    private Object retained;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerEntry;
+        public long tableBytesPerEntry;
+    }
+
+    @Setup
+    public void setUp() {
+        jwtUtils = BenchmarkFixtures.jwtUtils(0);
+        user = BenchmarkFixtures.user();
+        userDetails = BenchmarkFixtures.userDetails(user);
+    }
+
+    @TearDown(Level.Invocation)
+    public void release() {
+        retained = null;
+    }
+
+    @Benchmark
+    public void fill(Footprint footprint) {
+        long before = usedHeap();
+        long expiresAt = System.currentTimeMillis() + 900_000;
+        if (layout == Layout.TOKEN_STRING_MAP) {
+            ConcurrentMap<String, Long> map = new ConcurrentHashMap<>();
+            for (int i = 0; i < revokedTokens; i++) {
+                user.setId((long) i);
+                map.put(jwtUtils.generateToken(userDetails, user), expiresAt);
+            }
+            retained = map;
+        } else {
+            RevocationTable table = RevocationTable.create(layout == Layout.OFF_HEAP_TOKEN_ID_TABLE);
+            for (int i = 0; i < revokedTokens; i++) {
+                TokenId id = TokenId.random();
+                table.put(id.high(), id.low(), expiresAt);
+            }
+            retained = table;
+            footprint.tableBytesPerEntry = table.memoryBytes() / revokedTokens;
+        }
+        footprint.bytesPerEntry = (usedHeap() - before) / revokedTokens;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,54 @@
+package com.projects.marketmosaic.service.impl;
+
+import com.projects.marketmosaic.BenchmarkFixtures;
+import com.projects.marketmosaic.entity.UserEntity;
+import com.projects.marketmosaic.utils.JWTUtils;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TokenBlackListServiceBenchmark {
+    @Param({"10000", "200000"})
+    private int revokedTokens;
+
+    @Param({"false", "true"})
+    private boolean offHeap;
+
+    @Param({"false", "true"})
+    private boolean bloomFilter;
+
+    private TokenBlackListServiceImpl tokenBlackListService;
+    private VerifiedToken revokedToken;
+    private VerifiedToken liveToken;
+
+    @Setup
+    public void setUp() {
+        JWTUtils jwtUtils = BenchmarkFixtures.jwtUtils(0);
+        UserEntity user = BenchmarkFixtures.user();
+        tokenBlackListService = BenchmarkFixtures.tokenBlackListService(offHeap, bloomFilter);
+
+        for (int i = 0; i < revokedTokens; i++) {
+            user.setId((long) i);
+            VerifiedToken token = jwtUtils.verify(jwtUtils.generateToken(BenchmarkFixtures.userDetails(user), user));
+            tokenBlackListService.blacklistToken(token);
+            revokedToken = token;
+        }
+        user.setId(-1L);
+        liveToken = jwtUtils.verify(jwtUtils.generateToken(BenchmarkFixtures.userDetails(user), user));
+    }
+
+    // The common case: a token that was never revoked
+    @Benchmark
+    public boolean isTokenBlacklistedMiss() {
+        return tokenBlackListService.isTokenBlacklisted(liveToken);
+    }
+
+    @Benchmark
+    public boolean isTokenBlacklistedHit() {
+        return tokenBlackListService.isTokenBlacklisted(revokedToken);
+    }
+}
@@ -0,0 +1,34 @@
+package com.projects.marketmosaic.utils;
+
+import com.projects.marketmosaic.BenchmarkFixtures;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CookieUtilsBenchmark {
+    private CookieUtils cookieUtils;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        cookieUtils = BenchmarkFixtures.cookieUtils();
+        String token = BenchmarkFixtures.jwtUtils(0)
+                .generateToken(BenchmarkFixtures.userDetails(BenchmarkFixtures.user()), BenchmarkFixtures.user());
+
+        // Session cookie behind a couple of unrelated ones, as sent by browsers
+        request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("_ga", "GA1.1.1234567890.1700000000"),
+                new Cookie("locale", "en-US"),
+                new Cookie(BenchmarkFixtures.COOKIE_NAME, token));
+    }
+
+    @Benchmark
+    public String extractJwtFromCookies() {
+        return cookieUtils.extractJwtFromCookies(request);
+    }
+}
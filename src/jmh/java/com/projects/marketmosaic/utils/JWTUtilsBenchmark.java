@@ -0,0 +1,78 @@
+package com.projects.marketmosaic.utils;
+
+import com.projects.marketmosaic.BenchmarkFixtures;
+import com.projects.marketmosaic.config.security.CustomUserDetails;
+import com.projects.marketmosaic.entity.UserEntity;
+import com.projects.marketmosaic.utils.jwt.TokenProfile;
+import com.projects.marketmosaic.utils.jwt.TokenValidationResult;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JWTUtilsBenchmark {
+    private JWTUtils jwtUtils;
+    private JWTUtils uncachedJwtUtils;
+    private UserEntity user;
+    private CustomUserDetails userDetails;
+    private String token;
+    private String compactToken;
+    private String forgedToken;
+    private String expiredToken;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = BenchmarkFixtures.jwtUtils(10_000);
+        uncachedJwtUtils = BenchmarkFixtures.jwtUtils(0);
+        user = BenchmarkFixtures.user();
+        userDetails = BenchmarkFixtures.userDetails(user);
+        token = jwtUtils.generateToken(userDetails, user);
+        compactToken = BenchmarkFixtures.jwtUtils(0, TokenProfile.COMPACT).generateToken(userDetails, user);
+        forgedToken = token.substring(0, token.length() - 1) + (token.endsWith("A") ? "B" : "A");
+        ReflectionTestUtils.setField(uncachedJwtUtils, "accessTokenTtl", Duration.ofMinutes(-1));
+        expiredToken = uncachedJwtUtils.generateToken(userDetails, user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtils.generateToken(userDetails, user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtils.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtils.validateToken(token, userDetails);
+    }
+
+    // Full signature check and claims parse on every call
+    @Benchmark
+    public VerifiedToken verifyUncached() {
+        return uncachedJwtUtils.verify(token);
+    }
+
+    // Same, for a token minted with jwt.profile=COMPACT
+    @Benchmark
+    public VerifiedToken verifyCompactUncached() {
+        return uncachedJwtUtils.verify(compactToken);
+    }
+
+    // A forged or expired token that is not yet in the rejection list
+    @Benchmark
+    public TokenValidationResult validateForgedUncached() {
+        return uncachedJwtUtils.validate(forgedToken);
+    }
+
+    @Benchmark
+    public TokenValidationResult validateExpiredUncached() {
+        return uncachedJwtUtils.validate(expiredToken);
+    }
+}
@@ -0,0 +1,78 @@
+package com.projects.marketmosaic.utils.jwt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.marketmosaic.common.config.ZooKeeperConfig;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * jjwt builder against {@link TokenMinter} for the same standard claim set, single and multi threaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TokenMinterBenchmark {
+    private JwtSigningKeys signingKeys;
+    private TokenMinter minter;
+    private Map<String, Object> claims;
+
+    @Setup
+    public void setUp() {
+        ZooKeeperConfig zooKeeperConfig = mock(ZooKeeperConfig.class);
+        when(zooKeeperConfig.getStringValueByKey("JWT_SECRET")).thenReturn("benchmark-secret-benchmark-secret-0123456789");
+        @SuppressWarnings("unchecked")
+        ObjectProvider<CuratorFramework> curatorProvider = mock(ObjectProvider.class);
+        signingKeys = new JwtSigningKeys(zooKeeperConfig,
+                new VerifiedTokenCache(new SimpleMeterRegistry(), 0, Duration.ofMinutes(1)),
+                new ObjectMapper(), curatorProvider, "HS256");
+        minter = new TokenMinter(signingKeys);
+
+        claims = new LinkedHashMap<>();
+        claims.put(TokenClaims.USER_ID, 48213L);
+        claims.put(TokenClaims.EMAIL, "jane.doe@marketmosaic.example.com");
+        claims.put(TokenClaims.NAME, "Jane Doe");
+        claims.put(TokenClaims.ROLE, "USER");
+    }
+
+    @Benchmark
+    public String jjwt() {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .claims(claims)
+                .subject("jane.doe")
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + 900_000))
+                .signWith(signingKeys.getSigningKey().key())
+                .compact();
+    }
+
+    @Benchmark
+    public String minter() {
+        long now = System.currentTimeMillis();
+        return minter.mint(claims, "jane.doe", now, now + 900_000);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String jjwtContended() {
+        return jjwt();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String minterContended() {
+        return minter();
+    }
+}
@@ -1,15 +1,24 @@
 package com.projects.marketmosaic.config;
 
-import io.micrometer.core.instrument.MeterRegistry;
+import com.projects.marketmosaic.service.impl.RevocationMetrics;
+import io.micrometer.core.instrument.Clock;
 import io.micrometer.prometheusmetrics.PrometheusConfig;
 import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import io.prometheus.metrics.model.registry.PrometheusRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class MetricsConfig {
+    // Shares the registry the actuator's prometheus endpoint scrapes, so what is recorded here is exported
     @Bean
-    public MeterRegistry meterRegistry() {
-        return new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    public PrometheusMeterRegistry meterRegistry(PrometheusRegistry prometheusRegistry) {
+        return new PrometheusMeterRegistry(PrometheusConfig.DEFAULT, prometheusRegistry, Clock.SYSTEM);
     }
-}
\ No newline at end of file
+
+    // Bound to the registry by Spring Boot like any other MeterBinder bean
+    @Bean
+    public RevocationMetrics revocationMetrics() {
+        return new RevocationMetrics();
+    }
+}
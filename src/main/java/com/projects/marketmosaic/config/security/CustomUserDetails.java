@@ -19,6 +19,10 @@ public class CustomUserDetails implements UserDetails {
     @Setter
     private String email;
 
+    @Getter
+    @Setter
+    private String name;
+
     @Setter
     private String username;
 
@@ -1,7 +1,10 @@
 package com.projects.marketmosaic.config.security;
 
+import com.projects.marketmosaic.constants.ErrorMessages;
 import com.projects.marketmosaic.entity.UserEntity;
+import com.projects.marketmosaic.exception.exceptions.AuthException;
 import com.projects.marketmosaic.repositories.UserRepository;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
@@ -29,9 +32,28 @@ public class CustomUserDetailsService implements UserDetailsService {
                 return CustomUserDetails.builder()
                         .userId(user.getId())
                         .email(user.getEmail())
+                        .name(user.getName())
                         .username(user.getUsername())
                         .password(user.getPassword())
                         .authorities(authorities)
                         .build();
         }
-}
\ No newline at end of file
+
+        /**
+         * Builds the principal from claims the token already carries, without a database hit.
+         * Used by the stateless filter mode; revocation is what keeps these principals fresh.
+         * A token without a role cannot make a principal and is rejected as invalid.
+         */
+        public UserDetails loadUserFromToken(VerifiedToken token) {
+                if (token.role() == null || token.role().isBlank()) {
+                        throw AuthException.invalidToken(ErrorMessages.INVALID_TOKEN_FORMAT);
+                }
+                return CustomUserDetails.builder()
+                        .userId(token.userId())
+                        .email(token.email())
+                        .name(token.name())
+                        .username(token.subject())
+                        .authorities(List.of(new SimpleGrantedAuthority(token.role())))
+                        .build();
+        }
+}
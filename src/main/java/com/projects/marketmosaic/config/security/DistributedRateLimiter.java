@@ -0,0 +1,248 @@
+package com.projects.marketmosaic.config.security;
+
+import com.projects.marketmosaic.utils.AuthRedisManager;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cluster-wide rate limits. Redis keeps one GCRA arrival time per key for the whole cluster; a
+ * node reserves permits from it in batches and spends them locally, so only one request in a
+ * batch waits for a round trip. Permits a node has not spent within the lease are given back,
+ * together with the next reservation or by the idle sweep.
+ * <p>
+ * The batch size trades accuracy for round trips: a batch held by one node is not available to
+ * the others, so a key may be refused up to one batch per node early, but it is never let
+ * through more often than its limit. At a ratio of 0 every request goes to Redis.
+ * <p>
+ * When Redis fails or answers slower than the timeout, limits fall back to the local limiter,
+ * each node allowing its share of the limit, until the retry delay has passed. With distributed
+ * limits disabled every call goes to the local limiter: the exact {@link RateLimiter}, or the
+ * fixed-memory {@link SketchRateLimiter} when sketch limits are enabled.
+ */
+@Slf4j
+@Component
+public class DistributedRateLimiter {
+    static final String KEY_PREFIX = "auth:rate:";
+
+    // Arrival times are in microseconds of the Redis clock, so nodes need not agree on the time.
+    // Returned permits move the arrival time back, but never before now.
+    private static final RedisScript<List> RESERVE = RedisScript.of("""
+            local time = redis.call('TIME')
+            local now = time[1] * 1000000 + time[2]
+            local interval = tonumber(ARGV[1])
+            local period = tonumber(ARGV[2])
+            local tat = math.max(tonumber(redis.call('GET', KEYS[1]) or 0), now)
+            tat = math.max(tat - tonumber(ARGV[4]) * interval, now)
+            local granted = math.max(math.min(tonumber(ARGV[3]), math.floor((now + period - tat) / interval)), 0)
+            tat = tat + granted * interval
+            if tat > now then
+                redis.call('SET', KEYS[1], string.format('%.0f', tat), 'PX', math.ceil((tat - now) / 1000))
+            else
+                redis.call('DEL', KEYS[1])
+            end
+            if granted > 0 then
+                return {granted, 0}
+            end
+            return {0, tat + interval - now - period}
+            """, List.class);
+
+    private final RateLimiter localLimiter;
+    private final SketchRateLimiter sketchLimiter;
+    private final boolean sketch;
+    private final AuthRedisManager redisManager;
+    private final boolean enabled;
+    private final double batchRatio;
+    private final long leaseNanos;
+    private final long timeoutMillis;
+    private final long retryNanos;
+    private final int nodes;
+
+    private final ConcurrentMap<String, Lease> leases = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile long localUntil = System.nanoTime();
+
+    public DistributedRateLimiter(RateLimiter localLimiter, SketchRateLimiter sketchLimiter,
+                                  AuthRedisManager redisManager,
+                                  @Value("${auth.rate-limit.sketch.enabled:false}") boolean sketch,
+                                  @Value("${auth.rate-limit.distributed.enabled:false}") boolean enabled,
+                                  @Value("${auth.rate-limit.distributed.batch-ratio:0.05}") double batchRatio,
+                                  @Value("${auth.rate-limit.distributed.lease:PT1S}") Duration lease,
+                                  @Value("${auth.rate-limit.distributed.timeout:PT0.05S}") Duration timeout,
+                                  @Value("${auth.rate-limit.distributed.retry:PT5S}") Duration retry,
+                                  @Value("${auth.rate-limit.distributed.nodes:1}") int nodes) {
+        if (batchRatio < 0 || batchRatio > 1 || nodes <= 0) {
+            throw new IllegalArgumentException("Batch ratio must be within [0, 1] and nodes positive");
+        }
+        this.localLimiter = localLimiter;
+        this.sketchLimiter = sketchLimiter;
+        this.sketch = sketch;
+        this.redisManager = redisManager;
+        this.enabled = enabled;
+        this.batchRatio = batchRatio;
+        this.leaseNanos = lease.toNanos();
+        this.timeoutMillis = timeout.toMillis();
+        this.retryNanos = retry.toNanos();
+        this.nodes = nodes;
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Takes one request from the key's cluster-wide allowance. Returns 0 if it was allowed,
+     * otherwise the nanoseconds until one would be.
+     */
+    public long tryAcquire(String key, int maxRequests, Duration duration) {
+        if (!enabled) {
+            return tryAcquireLocally(key, maxRequests, duration);
+        }
+        if (maxRequests <= 0) {
+            throw new IllegalArgumentException("maxRequests must be positive");
+        }
+        long now = System.nanoTime();
+        if (localUntil - now > 0) {
+            return tryAcquireLocally(key, share(maxRequests), duration);
+        }
+        Lease lease = lease(key, maxRequests, duration);
+        if (lease.take(now)) {
+            return 0;
+        }
+        return refill(key, lease, maxRequests, duration, now);
+    }
+
+    @Scheduled(fixedRateString = "${auth.rate-limit.evict-ms:60000}")
+    public void returnIdle() {
+        long now = System.nanoTime();
+        for (var entry : leases.entrySet()) {
+            Lease lease = entry.getValue();
+            if (now - lease.expiresAt < 0) {
+                continue;
+            }
+            int unused;
+            synchronized (lease) {
+                if (now - lease.expiresAt < 0 || !leases.remove(entry.getKey(), lease)) {
+                    continue;
+                }
+                unused = lease.permits.getAndSet(0);
+            }
+            if (unused > 0 && localUntil - now <= 0) {
+                reserve(entry.getKey(), lease, 0, unused);
+            }
+        }
+    }
+
+    int size() {
+        return leases.size();
+    }
+
+    // One caller per key goes to Redis; the others wait for it and spend what it brings back
+    private long refill(String key, Lease lease, int maxRequests, Duration duration, long now) {
+        synchronized (lease) {
+            if (leases.get(key) != lease) {
+                // Retired by the idle sweep in the meantime
+                return tryAcquire(key, maxRequests, duration);
+            }
+            if (lease.take(now)) {
+                return 0;
+            }
+            int unused = lease.permits.getAndSet(0);
+            long[] reservation = reserve(key, lease, batch(maxRequests), unused);
+            if (reservation == null) {
+                return tryAcquireLocally(key, share(maxRequests), duration);
+            }
+            if (reservation[0] == 0) {
+                return TimeUnit.MICROSECONDS.toNanos(reservation[1]);
+            }
+            // The expiry goes first, so a caller that sees the permits also sees them as current
+            lease.expiresAt = System.nanoTime() + leaseNanos;
+            lease.permits.set((int) reservation[0] - 1);
+            return 0;
+        }
+    }
+
+    // Granted permits and the microseconds to wait when none were, or null once Redis has failed
+    private long[] reserve(String key, Lease lease, int wanted, int unused) {
+        try {
+            List<?> result = CompletableFuture.supplyAsync(() -> redisManager.execute(RESERVE,
+                            List.of(KEY_PREFIX + key), String.valueOf(lease.interval), String.valueOf(lease.period),
+                            String.valueOf(wanted), String.valueOf(unused)), executor)
+                    .get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return new long[]{((Number) result.get(0)).longValue(), ((Number) result.get(1)).longValue()};
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            localUntil = System.nanoTime() + retryNanos;
+            log.warn("Rate limit store unavailable, limiting locally for {} ms: {}",
+                    TimeUnit.NANOSECONDS.toMillis(retryNanos), e.toString());
+            return null;
+        }
+    }
+
+    private long tryAcquireLocally(String key, int maxRequests, Duration duration) {
+        return sketch ? sketchLimiter.tryAcquire(key, maxRequests, duration)
+                : localLimiter.tryAcquire(key, maxRequests, duration);
+    }
+
+    // This node's part of a cluster-wide limit while it limits on its own
+    private int share(int maxRequests) {
+        return Math.max(1, maxRequests / nodes);
+    }
+
+    private int batch(int maxRequests) {
+        return Math.max(1, (int) (maxRequests * batchRatio));
+    }
+
+    private Lease lease(String key, int maxRequests, Duration duration) {
+        Lease lease = leases.get(key);
+        if (lease != null) {
+            return lease;
+        }
+        long period = TimeUnit.NANOSECONDS.toMicros(duration.toNanos());
+        return leases.computeIfAbsent(key, _ -> new Lease(Math.max(1, period / maxRequests), period));
+    }
+
+    // Permits reserved from Redis and not spent yet; they are only good until the lease expires
+    private static final class Lease {
+        final long interval;
+        final long period;
+        final AtomicInteger permits = new AtomicInteger();
+        volatile long expiresAt = System.nanoTime();
+
+        Lease(long interval, long period) {
+            this.interval = interval;
+            this.period = period;
+        }
+
+        boolean take(long now) {
+            if (now - expiresAt >= 0) {
+                return false;
+            }
+            while (true) {
+                int available = permits.get();
+                if (available <= 0) {
+                    return false;
+                }
+                if (permits.compareAndSet(available, available - 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -2,18 +2,21 @@ package com.projects.marketmosaic.config.security;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projects.marketmosaic.common.dto.resp.BaseRespDTO;
+import com.projects.marketmosaic.enums.AuthStatus;
 import com.projects.marketmosaic.exception.exceptions.AuthException;
-import com.projects.marketmosaic.service.TokenBlackListService;
 import com.projects.marketmosaic.utils.CookieUtils;
 import com.projects.marketmosaic.utils.JWTUtils;
-import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.JwtException;
+import com.projects.marketmosaic.utils.TokenValidator;
+import com.projects.marketmosaic.utils.jwt.TokenValidationResult;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -23,71 +26,93 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Set;
 
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class JWTFilter extends OncePerRequestFilter {
     private final JWTUtils jwtUtils;
+    private final TokenValidator tokenValidator;
     private final CustomUserDetailsService userDetailsService;
-    private final TokenBlackListService tokenBlackListService;
     private final CookieUtils cookieUtils;
     private final ObjectMapper objectMapper;
 
+    // Routes that take no session: a stale access token must not keep a client from logging in
+    // again or trading its refresh token for a new one
+    private static final Set<String> ANONYMOUS_PATHS = Set.of("/auth/login", "/auth/register", "/auth/refresh",
+            "/auth/forgot-password", "/auth/reset-password");
+
+    // When enabled the principal is built from token claims instead of loading the user on every request
+    @Value("${jwt.filter.stateless:false}")
+    private boolean stateless;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return ANONYMOUS_PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        try {
-            String token = null;
+        String token = null;
 
-            // First try to get token from cookie
-            token = cookieUtils.extractJwtFromCookies(request);
+        // First try to get token from cookie
+        token = cookieUtils.extractJwtFromCookies(request);
 
-            // If not in cookie, try Authorization header
-            if (token == null) {
-                String authHeader = request.getHeader("Authorization");
-                if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                    token = jwtUtils.extractTokenFromHeader(authHeader);
-                }
+        // If not in cookie, try Authorization header
+        if (token == null) {
+            String authHeader = request.getHeader("Authorization");
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                token = jwtUtils.extractTokenFromHeader(authHeader);
             }
+        }
 
-            if (token != null) {
-                // Check if token is blacklisted
-                if (tokenBlackListService.isTokenBlacklisted(token)) {
-                    handleAuthError(response, AuthException.tokenBlacklisted());
-                    return;
-                }
+        if (token != null) {
+            // Signature, expiry and blacklist in one pass, bad tokens are reported without exceptions
+            TokenValidationResult result = tokenValidator.validate(token);
+            if (!result.isValid()) {
+                handleAuthError(response, HttpStatus.UNAUTHORIZED, result.code(), result.message());
+                return;
+            }
 
-                String username = jwtUtils.extractUsername(token);
+            // Share the verified token with the rest of the request
+            VerifiedToken verifiedToken = result.token();
+            verifiedToken.bindTo(request);
+            String username = verifiedToken.subject();
 
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                UserDetails userDetails;
+                try {
+                    userDetails = stateless
+                            ? userDetailsService.loadUserFromToken(verifiedToken)
+                            : userDetailsService.loadUserByUsername(username);
+                } catch (AuthException e) {
+                    handleAuthError(response, e.getStatus(), e.getCode(), e.getMessage());
+                    return;
+                }
 
-                    if (Boolean.TRUE.equals(jwtUtils.validateToken(token, userDetails))) {
-                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
-                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authToken);
-                    }
+                if (jwtUtils.validateToken(verifiedToken, userDetails)) {
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             }
-            filterChain.doFilter(request, response);
-        } catch (ExpiredJwtException e) {
-            handleAuthError(response, AuthException.tokenExpired());
-        } catch (JwtException e) {
-            handleAuthError(response, AuthException.invalidToken(e.getMessage()));
         }
+        filterChain.doFilter(request, response);
     }
 
-    private void handleAuthError(HttpServletResponse response, AuthException ex) throws IOException {
-        response.setStatus(ex.getStatus().value());
+    private void handleAuthError(HttpServletResponse response, HttpStatus status, AuthStatus code, String message)
+            throws IOException {
+        response.setStatus(status.value());
         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
 
         BaseRespDTO errorResponse = new BaseRespDTO();
-        errorResponse.setCode(ex.getCode().name());
-        errorResponse.setMessage(ex.getMessage());
+        errorResponse.setCode(code.name());
+        errorResponse.setMessage(message);
         errorResponse.setStatus(false);
 
         objectMapper.writeValue(response.getWriter(), errorResponse);
     }
-}
\ No newline at end of file
+}
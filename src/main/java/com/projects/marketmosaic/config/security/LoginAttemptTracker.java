@@ -1,86 +1,132 @@
 package com.projects.marketmosaic.config.security;
 
-import com.projects.marketmosaic.common.utils.RedisManager;
+import com.projects.marketmosaic.utils.AuthRedisManager;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.concurrent.TimeUnit;
-
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Failed logins per user in one Redis hash holding the attempt count and, once locked, the
+ * lockout expiry in epoch millis. Every operation is a single round trip: the check is one
+ * read-only script, a failure one script that counts it and locks the account when it is the last
+ * one allowed, a success one {@code DEL}. The hash expires with the lockout, or a lockout
+ * duration after the last failure.
+ * <p>
+ * Counts and lockouts written before the hash, under {@code login:attempts:} and
+ * {@code login:lockout:}, are still honoured: the check reads them in the same round trip and
+ * the next failure folds the legacy count into the hash. Both keys expire a lockout duration
+ * after they were last written, so the fallback can go once that long has passed since the
+ * hash was rolled out.
+ */
 @Component
 public class LoginAttemptTracker {
-    private final RedisManager redisManager;
-    private static final String LOGIN_ATTEMPTS_KEY_PREFIX = "login:attempts:";
-    private static final String LOCKOUT_TIME_KEY_PREFIX = "login:lockout:";
-
-    @Value("${auth.login.max-attempts:5}")
-    private int maxAttempts;
-
-    @Value("${auth.login.lockout-duration-minutes:30}")
-    private int lockoutDurationMinutes;
-
-    public LoginAttemptTracker(RedisManager redisManager) {
+    static final String KEY_PREFIX = "auth:login:";
+    private static final String ATTEMPTS = "attempts";
+    private static final String LOCKED_UNTIL = "lockedUntil";
+    private static final String LEGACY_ATTEMPTS_PREFIX = "login:attempts:";
+    private static final String LEGACY_LOCKOUT_PREFIX = "login:lockout:";
+
+    private static final RedisScript<List> CHECK = RedisScript.of("""
+            return {redis.call('HGET', KEYS[1], 'attempts') or false, redis.call('HGET', KEYS[1], 'lockedUntil') or false,
+                    redis.call('GET', KEYS[2]) or false, redis.call('GET', KEYS[3]) or false}
+            """, List.class);
+
+    // A locked account is left as it is, failures cannot push its lockout further out
+    private static final RedisScript<List> RECORD_FAILURE = RedisScript.of("""
+            local lockedUntil = tonumber(redis.call('HGET', KEYS[1], 'lockedUntil') or 0)
+            if lockedUntil > tonumber(ARGV[1]) then
+                return {tonumber(redis.call('HGET', KEYS[1], 'attempts') or 0), lockedUntil}
+            end
+            if lockedUntil > 0 then
+                redis.call('DEL', KEYS[1])
+            end
+            local legacy = tonumber(redis.call('GET', KEYS[2]) or 0) or 0
+            if legacy > 0 then
+                redis.call('DEL', KEYS[2])
+            end
+            local attempts = redis.call('HINCRBY', KEYS[1], 'attempts', 1 + legacy)
+            if attempts >= tonumber(ARGV[2]) then
+                redis.call('HSET', KEYS[1], 'lockedUntil', ARGV[3])
+                redis.call('PEXPIREAT', KEYS[1], ARGV[3])
+                return {attempts, tonumber(ARGV[3])}
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[4])
+            return {attempts, 0}
+            """, List.class);
+
+    private final AuthRedisManager redisManager;
+    private final int maxAttempts;
+    private final long lockoutMillis;
+
+    public LoginAttemptTracker(AuthRedisManager redisManager,
+                               @Value("${auth.login.max-attempts:5}") int maxAttempts,
+                               @Value("${auth.login.lockout-duration-minutes:30}") int lockoutDurationMinutes) {
         this.redisManager = redisManager;
+        this.maxAttempts = maxAttempts;
+        this.lockoutMillis = lockoutDurationMinutes * 60_000L;
     }
 
-    public void recordFailedLogin(String username) {
-        String attemptsKey = LOGIN_ATTEMPTS_KEY_PREFIX + username;
-        String lockoutKey = LOCKOUT_TIME_KEY_PREFIX + username;
-
-        // Increment attempts counter
-        Long attempts = redisManager.increment(attemptsKey);
-        if (attempts == null) {
-            attempts = 1L;
-        }
-
-        // Set expiration for both keys
-        redisManager.expire(attemptsKey, lockoutDurationMinutes, TimeUnit.MINUTES);
-        redisManager.expire(lockoutKey, lockoutDurationMinutes, TimeUnit.MINUTES);
+    public LoginAttempts check(String username) {
+        List<?> values = redisManager.execute(CHECK,
+                List.of(KEY_PREFIX + username, LEGACY_ATTEMPTS_PREFIX + username, LEGACY_LOCKOUT_PREFIX + username));
+        int attempts = (int) (parse(values.get(0)) + parse(values.get(2)));
+        return new LoginAttempts(attempts, Math.max(parse(values.get(1)), parseLegacyLockout(values.get(3))));
+    }
 
-        // If max attempts reached, set lockout time
-        if (attempts >= maxAttempts) {
-            LocalDateTime lockoutTime = LocalDateTime.now().plusMinutes(lockoutDurationMinutes);
-            redisManager.set(lockoutKey, lockoutTime.format(DateTimeFormatter.ISO_DATE_TIME));
-        }
+    public LoginAttempts recordFailedLogin(String username) {
+        long now = System.currentTimeMillis();
+        List<?> result = redisManager.execute(RECORD_FAILURE,
+                List.of(KEY_PREFIX + username, LEGACY_ATTEMPTS_PREFIX + username), String.valueOf(now),
+                String.valueOf(maxAttempts), String.valueOf(now + lockoutMillis), String.valueOf(lockoutMillis));
+        return new LoginAttempts(((Number) result.get(0)).intValue(), ((Number) result.get(1)).longValue());
     }
 
     public void recordSuccessfulLogin(String username) {
-        String attemptsKey = LOGIN_ATTEMPTS_KEY_PREFIX + username;
-        String lockoutKey = LOCKOUT_TIME_KEY_PREFIX + username;
-
-        redisManager.delete(attemptsKey);
-        redisManager.delete(lockoutKey);
+        clearAttempts(username);
     }
 
-    public boolean isAccountLocked(String username) {
-        String lockoutKey = LOCKOUT_TIME_KEY_PREFIX + username;
-        String lockoutTimeStr = (String) redisManager.get(lockoutKey);
+    public void clearAttempts(String username) {
+        redisManager.delete(KEY_PREFIX + username, LEGACY_ATTEMPTS_PREFIX + username, LEGACY_LOCKOUT_PREFIX + username);
+    }
 
-        if (lockoutTimeStr == null) {
-            return false;
+    // Redis nil comes back from the script as null
+    private static long parse(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.toString().replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return 0;
         }
-
-        LocalDateTime lockoutTime = LocalDateTime.parse(lockoutTimeStr, DateTimeFormatter.ISO_DATE_TIME);
-        return LocalDateTime.now().isBefore(lockoutTime);
     }
 
-    public LocalDateTime getLockoutTime(String username) {
-        String lockoutKey = LOCKOUT_TIME_KEY_PREFIX + username;
-        String lockoutTimeStr = (String) redisManager.get(lockoutKey);
-
-        if (lockoutTimeStr == null) {
-            return null;
+    // The old tracker stored the expiry as a local ISO date-time, possibly JSON quoted by the serializer
+    private static long parseLegacyLockout(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return LocalDateTime.parse(value.toString().replace("\"", ""), DateTimeFormatter.ISO_DATE_TIME)
+                    .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
         }
-
-        return LocalDateTime.parse(lockoutTimeStr, DateTimeFormatter.ISO_DATE_TIME);
     }
 
-    public void clearAttempts(String username) {
-        String attemptsKey = LOGIN_ATTEMPTS_KEY_PREFIX + username;
-        String lockoutKey = LOCKOUT_TIME_KEY_PREFIX + username;
-
-        redisManager.delete(attemptsKey);
-        redisManager.delete(lockoutKey);
+    /**
+     * Failed attempts since the last success and the lockout expiry in epoch millis, 0 if the
+     * account has not been locked.
+     */
+    public record LoginAttempts(int attempts, long lockedUntil) {
+        public boolean isLocked() {
+            return lockedUntil > System.currentTimeMillis();
+        }
     }
-}
\ No newline at end of file
+}
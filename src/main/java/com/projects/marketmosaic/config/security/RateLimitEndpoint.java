@@ -0,0 +1,33 @@
+package com.projects.marketmosaic.config.security;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/ratelimits}: the heavy hitters of the sketch limiter, most refused first, and
+ * the memory its sketches take. Keys are the policy's path and limit followed by the client key.
+ */
+@Component
+@Endpoint(id = "ratelimits")
+public class RateLimitEndpoint {
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final SketchRateLimiter sketchLimiter;
+
+    public RateLimitEndpoint(SketchRateLimiter sketchLimiter) {
+        this.sketchLimiter = sketchLimiter;
+    }
+
+    @ReadOperation
+    public RateLimits rateLimits(@Nullable Integer limit) {
+        return new RateLimits(sketchLimiter.memoryBytes(),
+                sketchLimiter.topOffenders(limit != null && limit > 0 ? limit : DEFAULT_LIMIT));
+    }
+
+    public record RateLimits(long sketchBytes, List<SketchRateLimiter.Offender> topOffenders) {
+    }
+}
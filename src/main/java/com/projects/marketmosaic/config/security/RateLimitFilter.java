@@ -0,0 +1,377 @@
+package com.projects.marketmosaic.config.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.marketmosaic.common.dto.resp.BaseRespDTO;
+import com.projects.marketmosaic.constants.ErrorMessages;
+import com.projects.marketmosaic.enums.AuthStatus;
+import com.projects.marketmosaic.utils.CookieUtils;
+import com.projects.marketmosaic.utils.JWTUtils;
+import com.projects.marketmosaic.utils.jwt.TokenValidationResult;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the {@link RateLimited} policies of the matched handler method. Runs ahead of
+ * {@link JWTFilter} and only looks at the path, the client address and, for user keyed
+ * policies, the token, so a throttled request is rejected with 429 before any password hashing
+ * or database work starts. Field keyed policies also read one field of the JSON body; the body is
+ * buffered for the handler, and only when it is small and of a declared length.
+ * <p>
+ * Policies are collected from the handler methods once the context is up; literal paths are
+ * looked up directly, patterns are matched in order.
+ * <p>
+ * IP keyed policies take the peer address as the client, which only holds when clients connect
+ * directly. Behind a load balancer or reverse proxy every client would share the proxy's
+ * allowance, so the proxies have to be listed in {@code auth.rate-limit.trusted-proxies}
+ * (addresses or CIDR ranges, comma separated). A request from one of them is keyed by the last
+ * {@code X-Forwarded-For} entry not added by a trusted proxy; entries further left are set by the
+ * client and never trusted.
+ */
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+    private static final int MAX_BUFFERED_BODY = 4096;
+
+    private final DistributedRateLimiter rateLimiter;
+    private final JWTUtils jwtUtils;
+    private final CookieUtils cookieUtils;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+    private final ObjectProvider<RequestMappingHandlerMapping> handlerMapping;
+    private final List<IpAddressMatcher> trustedProxies;
+
+    private volatile Map<String, List<Route>> literalRoutes = Map.of();
+    private volatile List<Route> patternRoutes = List.of();
+
+    public RateLimitFilter(DistributedRateLimiter rateLimiter, JWTUtils jwtUtils, CookieUtils cookieUtils, ObjectMapper objectMapper,
+                           Environment environment, ObjectProvider<RequestMappingHandlerMapping> handlerMapping) {
+        this.rateLimiter = rateLimiter;
+        this.jwtUtils = jwtUtils;
+        this.cookieUtils = cookieUtils;
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+        this.handlerMapping = handlerMapping;
+        this.trustedProxies = Arrays.stream(environment.getProperty("auth.rate-limit.trusted-proxies", String[].class,
+                        new String[0]))
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void collectPolicies() {
+        RequestMappingHandlerMapping mapping = handlerMapping.getIfAvailable();
+        if (mapping != null) {
+            register(mapping);
+        }
+    }
+
+    void register(RequestMappingHandlerMapping mapping) {
+        Map<String, List<Route>> literals = new HashMap<>();
+        List<Route> patterns = new ArrayList<>();
+        mapping.getHandlerMethods().forEach((info, handlerMethod) -> {
+            Set<RateLimited> annotations = AnnotatedElementUtils.findMergedRepeatableAnnotations(
+                    handlerMethod.getMethod(), RateLimited.class);
+            if (annotations.isEmpty() || info.getPathPatternsCondition() == null) {
+                return;
+            }
+            for (PathPattern pattern : info.getPathPatternsCondition().getPatterns()) {
+                String path = pattern.getPatternString();
+                List<Policy> policies = annotations.stream().map(annotation -> policy(annotation, path)).toList();
+                Route route = new Route(pattern, methods(info), policies);
+                if (path.indexOf('{') < 0 && path.indexOf('*') < 0 && path.indexOf('?') < 0) {
+                    literals.computeIfAbsent(path, _ -> new ArrayList<>()).add(route);
+                } else {
+                    patterns.add(route);
+                }
+            }
+            log.debug("Rate limiting {} with {}", info, annotations);
+        });
+        literalRoutes = literals;
+        patternRoutes = patterns;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Route route = route(request);
+        if (route != null) {
+            if (route.readsBody()) {
+                request = BufferedBodyRequest.of(request, MAX_BUFFERED_BODY);
+            }
+            for (Policy policy : route.policies()) {
+                long retryAfterNanos = rateLimiter.tryAcquire(policy.prefix() + key(policy, request),
+                        policy.requests(), policy.period());
+                if (retryAfterNanos > 0) {
+                    reject(response, retryAfterNanos);
+                    return;
+                }
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private Route route(HttpServletRequest request) {
+        if (literalRoutes.isEmpty() && patternRoutes.isEmpty()) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        RequestMethod method = RequestMethod.resolve(request.getMethod());
+        for (Route route : literalRoutes.getOrDefault(path, List.of())) {
+            if (route.accepts(method)) {
+                return route;
+            }
+        }
+        if (patternRoutes.isEmpty()) {
+            return null;
+        }
+        PathContainer container = PathContainer.parsePath(path);
+        for (Route route : patternRoutes) {
+            if (route.accepts(method) && route.pattern().matches(container)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private String key(Policy policy, HttpServletRequest request) {
+        if (policy.key() == RateLimited.Key.FIELD) {
+            String value = field(request, policy.field());
+            if (value != null) {
+                return "FIELD:" + policy.field() + ':' + value;
+            }
+        } else if (policy.key() != RateLimited.Key.IP) {
+            VerifiedToken token = token(request);
+            if (token != null) {
+                Object value = policy.key() == RateLimited.Key.USERNAME ? token.subject() : token.userId();
+                if (value != null) {
+                    return policy.key().name() + ':' + value;
+                }
+            }
+        }
+        return "IP:" + clientAddress(request);
+    }
+
+    // Case and surrounding blanks do not make a new key, so they cannot be used to get around the limit
+    private String field(HttpServletRequest request, String field) {
+        if (!(request instanceof BufferedBodyRequest buffered) || buffered.body().length == 0) {
+            return null;
+        }
+        try {
+            JsonNode value = objectMapper.readTree(buffered.body()).get(field);
+            if (value == null || !value.isTextual() || value.asText().isBlank()) {
+                return null;
+            }
+            return value.asText().trim().toLowerCase(Locale.ROOT);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Walks the forwarded chain from the nearest hop back, as far as the hops are trusted proxies
+    String clientAddress(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        if (trustedProxies.isEmpty() || !isTrustedProxy(address)) {
+            return address;
+        }
+        String forwardedFor = request.getHeader(FORWARDED_FOR);
+        if (forwardedFor == null) {
+            return address;
+        }
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                continue;
+            }
+            address = hop;
+            if (!isTrustedProxy(hop)) {
+                break;
+            }
+        }
+        return address;
+    }
+
+    // Only address literals are matched, a hop that is anything else must not cause a DNS lookup
+    private boolean isTrustedProxy(String address) {
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            if (Character.digit(c, 16) < 0 && c != '.' && c != ':') {
+                return false;
+            }
+        }
+        for (IpAddressMatcher proxy : trustedProxies) {
+            if (proxy.matches(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Signature and expiry only, repeated lookups of the same token come from the verified token cache
+    private VerifiedToken token(HttpServletRequest request) {
+        String token = cookieUtils.extractJwtFromCookies(request);
+        if (token == null) {
+            String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                token = jwtUtils.extractTokenFromHeader(authHeader);
+            }
+        }
+        if (token == null) {
+            return null;
+        }
+        TokenValidationResult result = jwtUtils.validate(token);
+        return result.isValid() ? result.token() : null;
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterNanos) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        // Whole seconds, rounded up so a client that waits exactly this long is let through
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf((retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        BaseRespDTO errorResponse = new BaseRespDTO();
+        errorResponse.setCode(AuthStatus.AUTH_008.name());
+        errorResponse.setMessage(ErrorMessages.TOO_MANY_REQUESTS);
+        errorResponse.setStatus(false);
+
+        objectMapper.writeValue(response.getWriter(), errorResponse);
+    }
+
+    private Policy policy(RateLimited annotation, String path) {
+        int requests = Integer.parseInt(environment.resolveRequiredPlaceholders(annotation.requests()));
+        Duration period = Duration.parse(environment.resolveRequiredPlaceholders(annotation.period()));
+        if (requests <= 0 || period.isNegative() || period.isZero()) {
+            throw new IllegalStateException("Invalid rate limit " + requests + " per " + period);
+        }
+        if (annotation.key() == RateLimited.Key.FIELD && annotation.field().isEmpty()) {
+            throw new IllegalStateException("Field keyed rate limit on " + path + " names no field");
+        }
+        // Routes do not share allowances, neither do two policies of one route
+        return new Policy(annotation.key(), annotation.field(), requests, period,
+                path + '|' + requests + '/' + period + '|');
+    }
+
+    private static Set<RequestMethod> methods(RequestMappingInfo info) {
+        return info.getMethodsCondition().getMethods();
+    }
+
+    private record Route(PathPattern pattern, Set<RequestMethod> methods, List<Policy> policies, boolean readsBody) {
+        Route(PathPattern pattern, Set<RequestMethod> methods, List<Policy> policies) {
+            this(pattern, methods, policies, policies.stream().anyMatch(policy -> policy.key() == RateLimited.Key.FIELD));
+        }
+
+        // A mapping without methods accepts all of them
+        boolean accepts(RequestMethod method) {
+            return methods.isEmpty() || methods.contains(method);
+        }
+    }
+
+    private record Policy(RateLimited.Key key, String field, int requests, Duration period, String prefix) {
+    }
+
+    // Holds the body read for a field keyed policy, so the handler reads it again from here
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private BufferedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        // A body too large or of unknown length is left unread and keys the request by IP
+        static HttpServletRequest of(HttpServletRequest request, int maxLength) throws IOException {
+            int length = request.getContentLength();
+            if (length < 0 || length > maxLength) {
+                return request;
+            }
+            return new BufferedBodyRequest(request, request.getInputStream().readNBytes(length));
+        }
+
+        byte[] body() {
+            return body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("The body is already buffered");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws UnsupportedEncodingException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
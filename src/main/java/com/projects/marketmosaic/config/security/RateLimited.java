@@ -0,0 +1,52 @@
+package com.projects.marketmosaic.config.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Throttles a handler method in {@link RateLimitFilter}, before the request body is read. Both
+ * limits accept {@code ${...}} placeholders, so they can be tuned from the application config.
+ * Repeat the annotation to limit one route by several keys.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(RateLimited.List.class)
+public @interface RateLimited {
+    /**
+     * Requests allowed per period.
+     */
+    String requests();
+
+    /**
+     * ISO-8601 duration, e.g. {@code PT1M}.
+     */
+    String period() default "PT1M";
+
+    Key key() default Key.IP;
+
+    /**
+     * The top-level JSON body field a {@link Key#FIELD} policy is keyed by.
+     */
+    String field() default "";
+
+    enum Key {
+        IP,
+        // Subject and user id come from a valid token; requests without one are keyed by IP
+        USERNAME,
+        USER_ID,
+        // A string field of the request body, such as the username of a login; requests without it are keyed by IP
+        FIELD
+    }
+
+    @Documented
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface List {
+        RateLimited[] value();
+    }
+}
@@ -1,54 +1,95 @@
 package com.projects.marketmosaic.config.security;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
-import java.time.Instant;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Generic cell rate algorithm: each key keeps only its theoretical arrival time (TAT), the
+ * {@link System#nanoTime} at which it would be fully drained again. A request moves it on by
+ * {@code duration / maxRequests} and is allowed while it stays within {@code duration} of now,
+ * which admits {@code maxRequests} back to back and then one every interval.
+ * <p>
+ * The TAT is updated by compare-and-set, so callers never block each other and an allowed call
+ * allocates nothing once its key exists. A key whose TAT has passed holds no state a new key
+ * would not have, so idle keys are evicted periodically.
+ */
 @Slf4j
 @Component
 public class RateLimiter {
-    private static class RateLimit {
-        private final int maxRequests;
-        private final Duration duration;
-        private final Map<Instant, Integer> requests = new ConcurrentHashMap<>();
-
-        public RateLimit(int maxRequests, Duration duration) {
-            this.maxRequests = maxRequests;
-            this.duration = duration;
-        }
-
-        public synchronized boolean tryAcquire() {
-            Instant now = Instant.now();
-            Instant cutoff = now.minus(duration);
+    // TAT of an evicted cell; callers still holding it go back to the map
+    private static final long EVICTED = Long.MIN_VALUE;
 
-            // Clean up old entries
-            requests.entrySet().removeIf(entry -> entry.getKey().isBefore(cutoff));
+    private final ConcurrentMap<String, AtomicLong> cells = new ConcurrentHashMap<>();
 
-            // Count current requests
-            int currentRequests = requests.values().stream().mapToInt(Integer::intValue).sum();
+    public boolean isAllowed(String key, int maxRequests, Duration duration) {
+        return tryAcquire(key, maxRequests, duration) == 0;
+    }
 
-            if (currentRequests >= maxRequests) {
-                return false;
+    /**
+     * Takes one request from the key's allowance. Returns 0 if it was allowed, otherwise the
+     * nanoseconds until one would be.
+     */
+    public long tryAcquire(String key, int maxRequests, Duration duration) {
+        if (maxRequests <= 0) {
+            throw new IllegalArgumentException("maxRequests must be positive");
+        }
+        long period = duration.toNanos();
+        long interval = period / maxRequests;
+        long now = System.nanoTime();
+        AtomicLong cell = cell(key, now);
+        while (true) {
+            long tat = cell.get();
+            if (tat == EVICTED) {
+                cells.remove(key, cell);
+                cell = cell(key, now);
+                continue;
+            }
+            long next = (tat - now > 0 ? tat : now) + interval;
+            long excess = next - now - period;
+            if (excess > 0) {
+                return excess;
+            }
+            if (cell.compareAndSet(tat, next)) {
+                return 0;
             }
-
-            requests.merge(now, 1, Integer::sum);
-            return true;
         }
     }
 
-    private final Map<String, RateLimit> rateLimits = new ConcurrentHashMap<>();
+    public void clearRateLimit(String key) {
+        cells.remove(key);
+    }
 
-    public boolean isAllowed(String key, int maxRequests, Duration duration) {
-        RateLimit limit = rateLimits.computeIfAbsent(key,
-                _ -> new RateLimit(maxRequests, duration));
-        return limit.tryAcquire();
+    @Scheduled(fixedRateString = "${auth.rate-limit.evict-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (var entry : cells.entrySet()) {
+            AtomicLong cell = entry.getValue();
+            long tat = cell.get();
+            // Marked first, so a concurrent caller cannot spend allowance on a cell leaving the map
+            if (tat - now <= 0 && cell.compareAndSet(tat, EVICTED)) {
+                cells.remove(entry.getKey(), cell);
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit keys", evicted);
+        }
     }
 
-    public void clearRateLimit(String key) {
-        rateLimits.remove(key);
+    int size() {
+        return cells.size();
+    }
+
+    // A new key starts drained
+    private AtomicLong cell(String key, long now) {
+        AtomicLong cell = cells.get(key);
+        return cell != null ? cell : cells.computeIfAbsent(key, _ -> new AtomicLong(now));
     }
-}
\ No newline at end of file
+}
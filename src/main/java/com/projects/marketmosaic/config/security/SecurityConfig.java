@@ -32,6 +32,7 @@ public class SecurityConfig {
 
     private final CustomUserDetailsService userDetailsService;
     private final JWTFilter filter;
+    private final RateLimitFilter rateLimitFilter;
 
     @Bean
     public PasswordEncoder passwordEncoder() {
@@ -43,13 +44,17 @@ public class SecurityConfig {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(requests -> requests
-                        .requestMatchers("/auth/login", "/auth/register",
-                                "/auth/forgot-password", "/auth/reset-password")
+                        .requestMatchers("/auth/login", "/auth/register", "/auth/refresh",
+                                "/auth/forgot-password", "/auth/reset-password", "/.well-known/jwks.json")
                         .permitAll()
+                        // Offender keys carry client addresses and usernames
+                        .requestMatchers("/actuator/ratelimits").hasAuthority("ADMIN")
                         .anyRequest().authenticated())
                 .authenticationProvider(authenticationProvider())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .addFilterBefore(filter, UsernamePasswordAuthenticationFilter.class)
+                // Throttled requests are turned away before authentication and before the body is read
+                .addFilterBefore(rateLimitFilter, JWTFilter.class)
                 .httpBasic(Customizer.withDefaults());
 
         return http.build();
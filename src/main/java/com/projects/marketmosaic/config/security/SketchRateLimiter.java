@@ -0,0 +1,267 @@
+package com.projects.marketmosaic.config.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate limits in fixed memory. Requests are counted in a count-min sketch per period, over a
+ * sliding window made of the current and the previous period; a key is refused once its estimate
+ * passes the limit. Keys whose estimate reaches a share of their limit are promoted to a small
+ * exact table and limited by GCRA from then on, starting from the sketch's count.
+ * <p>
+ * However many distinct keys arrive, memory is the sketches plus at most {@code heavy-hitters}
+ * exact entries. The sketch only overestimates: a key that shares every row with heavy traffic
+ * may be refused early, by at most about {@code e / width} of the requests in the window, so the
+ * width should keep the distinct keys per window divided by it well under the smallest limit;
+ * the default holds 1M keys a minute against a limit of 10. Rows are indexed by a hash seeded per
+ * instance, so colliding keys cannot be picked in advance.
+ */
+@Slf4j
+@Component
+public class SketchRateLimiter {
+    private static final int DEPTH = 4;
+
+    private final int width;
+    private final int maxHeavyHitters;
+    private final double promoteRatio;
+    private final long seed = ThreadLocalRandom.current().nextLong();
+
+    // One sketch per distinct period, so as many as there are policies at most
+    private final ConcurrentMap<Duration, WindowedSketch> sketches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, HeavyHitter> heavyHitters = new ConcurrentHashMap<>();
+    // Slots are reserved before an entry is added, so racing promotions cannot pass the cap
+    private final AtomicInteger heavyHitterSlots = new AtomicInteger();
+
+    public SketchRateLimiter(@Value("${auth.rate-limit.sketch.width:262144}") int width,
+                             @Value("${auth.rate-limit.sketch.heavy-hitters:1024}") int maxHeavyHitters,
+                             @Value("${auth.rate-limit.sketch.promote-ratio:0.5}") double promoteRatio) {
+        if (Integer.bitCount(width) != 1 || maxHeavyHitters < 0 || promoteRatio <= 0 || promoteRatio > 1) {
+            throw new IllegalArgumentException("Width must be a power of two and the promote ratio within (0, 1]");
+        }
+        this.width = width;
+        this.maxHeavyHitters = maxHeavyHitters;
+        this.promoteRatio = promoteRatio;
+    }
+
+    /**
+     * Takes one request from the key's allowance. Returns 0 if it was allowed, otherwise the
+     * nanoseconds until one would be.
+     */
+    public long tryAcquire(String key, int maxRequests, Duration duration) {
+        if (maxRequests <= 0) {
+            throw new IllegalArgumentException("maxRequests must be positive");
+        }
+        long now = System.nanoTime();
+        HeavyHitter heavyHitter = heavyHitters.get(key);
+        if (heavyHitter != null) {
+            return heavyHitter.tryAcquire(now);
+        }
+        WindowedSketch sketch = sketches.get(duration);
+        if (sketch == null) {
+            sketch = sketches.computeIfAbsent(duration, _ -> new WindowedSketch(width, duration.toNanos(), now));
+        }
+        long count = sketch.add(hash(key), now);
+        if (count >= maxRequests * promoteRatio) {
+            heavyHitter = promote(key, maxRequests, duration, now, count - 1);
+            if (heavyHitter != null) {
+                return heavyHitter.tryAcquire(now);
+            }
+        }
+        return count > maxRequests ? sketch.untilNextWindow(now) : 0;
+    }
+
+    // Null once the table is full and the key is not in it
+    private HeavyHitter promote(String key, int maxRequests, Duration duration, long now, long counted) {
+        if (heavyHitterSlots.get() >= maxHeavyHitters) {
+            return heavyHitters.get(key);
+        }
+        if (heavyHitterSlots.incrementAndGet() > maxHeavyHitters) {
+            heavyHitterSlots.decrementAndGet();
+            return heavyHitters.get(key);
+        }
+        HeavyHitter created = new HeavyHitter(key, maxRequests, duration.toNanos(), now, counted);
+        HeavyHitter existing = heavyHitters.putIfAbsent(key, created);
+        if (existing != null) {
+            heavyHitterSlots.decrementAndGet();
+            return existing;
+        }
+        return created;
+    }
+
+    /**
+     * The heavy hitters with the most refused requests first.
+     */
+    public List<Offender> topOffenders(int limit) {
+        return heavyHitters.values().stream()
+                .map(HeavyHitter::toOffender)
+                .sorted(Comparator.comparingLong(Offender::rejected).thenComparingLong(Offender::requests).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public long memoryBytes() {
+        return (long) sketches.size() * 2 * DEPTH * width * Integer.BYTES;
+    }
+
+    // A heavy hitter that has drained and kept quiet for a period is left to the sketch again
+    @Scheduled(fixedRateString = "${auth.rate-limit.evict-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (var entry : heavyHitters.entrySet()) {
+            HeavyHitter heavyHitter = entry.getValue();
+            if (heavyHitter.tat.get() - now <= 0 && now - heavyHitter.lastSeen >= heavyHitter.period
+                    && heavyHitters.remove(entry.getKey(), heavyHitter)) {
+                heavyHitterSlots.decrementAndGet();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle heavy hitters", evicted);
+        }
+    }
+
+    int heavyHitterCount() {
+        return heavyHitters.size();
+    }
+
+    private long hash(String key) {
+        long hash = seed;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x9E3779B97F4A7C15L;
+        }
+        hash ^= hash >>> 32;
+        hash *= 0xD6E8FEB86659FD93L;
+        return hash ^ hash >>> 32;
+    }
+
+    public record Offender(String key, long requests, long rejected) {
+    }
+
+    private static final class WindowedSketch {
+        private final int mask;
+        private final long length;
+        private volatile Window window;
+
+        WindowedSketch(int width, long length, long now) {
+            this.mask = width - 1;
+            this.length = length;
+            this.window = new Window(new AtomicIntegerArray(DEPTH * width), new AtomicIntegerArray(DEPTH * width), now);
+        }
+
+        // Counts the request and returns the key's estimate over the sliding window
+        long add(long hash, long now) {
+            Window current = window;
+            if (now - current.start() >= length) {
+                current = rotate(now);
+            }
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            int currentMin = Integer.MAX_VALUE;
+            int previousMin = Integer.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                int index = index(row, h1, h2);
+                currentMin = Math.min(currentMin, current.counts().get(index));
+                previousMin = Math.min(previousMin, current.previousCounts().get(index));
+            }
+            // Conservative update: no row is raised past the new estimate, which keeps the
+            // overestimate from other keys far below that of incrementing every row
+            int estimate = currentMin + 1;
+            for (int row = 0; row < DEPTH; row++) {
+                current.counts().accumulateAndGet(index(row, h1, h2), estimate, Math::max);
+            }
+            // The previous window counts for the part of it the sliding window still covers
+            double overlap = 1 - Math.min(1.0, (double) (now - current.start()) / length);
+            return estimate + (long) Math.ceil(previousMin * overlap);
+        }
+
+        // Recomputed rather than kept, so counting a request allocates nothing
+        private int index(int row, int h1, int h2) {
+            return row * (mask + 1) + ((h1 + row * h2) & mask);
+        }
+
+        long untilNextWindow(long now) {
+            return Math.max(1, window.start() + length - now);
+        }
+
+        // The oldest counts are zeroed and reused, the sketch never grows
+        private synchronized Window rotate(long now) {
+            Window current = window;
+            long elapsed = now - current.start();
+            if (elapsed < length) {
+                return current;
+            }
+            AtomicIntegerArray recycled = current.previousCounts();
+            AtomicIntegerArray previous = current.counts();
+            if (elapsed >= 2 * length) {
+                // Nothing counted that long ago is still in the window
+                clear(previous);
+            }
+            clear(recycled);
+            window = new Window(recycled, previous, current.start() + elapsed / length * length);
+            return window;
+        }
+
+        private static void clear(AtomicIntegerArray counts) {
+            for (int i = 0; i < counts.length(); i++) {
+                counts.setPlain(i, 0);
+            }
+        }
+    }
+
+    private record Window(AtomicIntegerArray counts, AtomicIntegerArray previousCounts, long start) {
+    }
+
+    // GCRA as in RateLimiter, with request and refusal counts for the offender report
+    private static final class HeavyHitter {
+        private final String key;
+        private final long interval;
+        private final long period;
+        private final AtomicLong tat;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private volatile long lastSeen;
+
+        HeavyHitter(String key, int maxRequests, long period, long now, long counted) {
+            this.key = key;
+            this.interval = period / maxRequests;
+            this.period = period;
+            this.tat = new AtomicLong(now + Math.min(counted, maxRequests) * interval);
+            this.requests.add(counted);
+        }
+
+        long tryAcquire(long now) {
+            requests.increment();
+            lastSeen = now;
+            while (true) {
+                long current = tat.get();
+                long next = (current - now > 0 ? current : now) + interval;
+                long excess = next - now - period;
+                if (excess > 0) {
+                    rejected.increment();
+                    return excess;
+                }
+                if (tat.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        Offender toOffender() {
+            return new Offender(key, requests.sum(), rejected.sum());
+        }
+    }
+}
@@ -16,7 +16,11 @@ public final class ErrorMessages {
     public static final String USERNAME_EXISTS = "Username already exists";
     public static final String INVALID_TOKEN_FORMAT = "Invalid token format";
     public static final String JWT_PARSE_ERROR = "Error parsing JWT token";
+    public static final String INVALID_TOKEN_SIGNATURE = "Invalid token signature";
+    public static final String INVALID_REFRESH_TOKEN = "Invalid or expired refresh token";
+    public static final String REFRESH_TOKEN_REUSED = "Refresh token has already been used, please log in again";
     public static final String INVALID_DATA = "Please enter valid data";
+    public static final String TOO_MANY_REQUESTS = "Too many requests, please try again later";
 
     // File related error messages
     public static final String INVALID_FILE_TYPE = "Invalid file type. Only image files are allowed";
@@ -3,6 +3,7 @@ package com.projects.marketmosaic.controller;
 import com.projects.marketmosaic.common.dto.resp.BaseRespDTO;
 import com.projects.marketmosaic.common.dto.resp.TokenValidationRespDTO;
 import com.projects.marketmosaic.config.security.LoginAttemptTracker;
+import com.projects.marketmosaic.config.security.RateLimited;
 import com.projects.marketmosaic.dtos.*;
 import com.projects.marketmosaic.service.AuthService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,6 +21,9 @@ public class AuthController {
     private final LoginAttemptTracker loginAttemptTracker;
 
     @PostMapping("/login")
+    @RateLimited(requests = "${auth.rate-limit.login.requests:10}", period = "${auth.rate-limit.login.period:PT1M}")
+    @RateLimited(requests = "${auth.rate-limit.login.username.requests:5}",
+            period = "${auth.rate-limit.login.username.period:PT1M}", key = RateLimited.Key.FIELD, field = "username")
     public ResponseEntity<BaseRespDTO> login(
             @RequestBody LoginReqDTO loginReqDTO,
             HttpServletResponse response) {
@@ -28,11 +32,19 @@ public class AuthController {
     }
 
     @PostMapping("/register")
+    @RateLimited(requests = "${auth.rate-limit.register.requests:20}", period = "${auth.rate-limit.register.period:PT1H}")
     public ResponseEntity<BaseRespDTO> register(
             @RequestBody RegisterReqDTO registerReqDTO) {
         return ResponseEntity.ok(authService.registerUser(registerReqDTO));
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<BaseRespDTO> refresh(
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        return ResponseEntity.ok(authService.refreshToken(request, response));
+    }
+
     @PostMapping("/logout")
     public ResponseEntity<BaseRespDTO> logout(
             @RequestHeader(value = "Authorization", required = false) String authHeader,
@@ -50,6 +62,10 @@ public class AuthController {
     }
 
     @PostMapping("/forgot-password")
+    @RateLimited(requests = "${auth.rate-limit.forgot-password.requests:5}",
+            period = "${auth.rate-limit.forgot-password.period:PT15M}")
+    @RateLimited(requests = "${auth.rate-limit.forgot-password.email.requests:3}",
+            period = "${auth.rate-limit.forgot-password.email.period:PT1H}", key = RateLimited.Key.FIELD, field = "email")
     public ResponseEntity<BaseRespDTO> forgotPassword(
             @RequestBody ForgotPasswordReqDTO reqDTO) {
         return ResponseEntity.ok(authService.forgotPassword(reqDTO));
@@ -0,0 +1,29 @@
+package com.projects.marketmosaic.controller;
+
+import com.projects.marketmosaic.utils.jwt.JwtSigningKeys;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+    private final JwtSigningKeys signingKeys;
+
+    @Value("${jwt.jwks.max-age:PT10M}")
+    private Duration maxAge;
+
+    // Public verification keys for services that validate tokens in-process; empty in HS256 mode
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(maxAge).cachePublic().staleWhileRevalidate(maxAge))
+                .body(Map.of("keys", signingKeys.getPublicJwks()));
+    }
+}
@@ -7,5 +7,6 @@ public enum AuthStatus {
     AUTH_004,
     AUTH_005,
     AUTH_006,
-    AUTH_007
+    AUTH_007,
+    AUTH_008
 }
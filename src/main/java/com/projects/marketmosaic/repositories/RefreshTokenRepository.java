@@ -0,0 +1,39 @@
+package com.projects.marketmosaic.repositories;
+
+import com.projects.marketmosaic.entity.RefreshTokenEntity;
+import com.projects.marketmosaic.entity.UserEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntity, Long> {
+    Optional<RefreshTokenEntity> findByTokenHash(String tokenHash);
+
+    // Conditional update so that only one of two concurrent refreshes can win
+    @Modifying
+    @Query("update RefreshTokenEntity r set r.used = true where r.id = :id and r.used = false")
+    int markUsed(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from RefreshTokenEntity r where r.familyId = :familyId")
+    int deleteByFamilyId(@Param("familyId") String familyId);
+
+    @Modifying
+    @Query("delete from RefreshTokenEntity r where r.familyId in :familyIds")
+    int deleteByFamilyIdIn(@Param("familyIds") Collection<String> familyIds);
+
+    @Modifying
+    @Query("delete from RefreshTokenEntity r where r.user = :user")
+    int deleteByUser(@Param("user") UserEntity user);
+
+    @Modifying
+    @Query("delete from RefreshTokenEntity r where r.expiryDate < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
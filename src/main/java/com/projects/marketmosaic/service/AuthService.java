@@ -14,6 +14,8 @@ public interface AuthService {
 
     BaseRespDTO registerUser(RegisterReqDTO reqDTO);
 
+    BaseRespDTO refreshToken(HttpServletRequest request, HttpServletResponse response);
+
     BaseRespDTO logout(String authHeader, HttpServletRequest request, HttpServletResponse response);
 
     BaseRespDTO logoutAllSessions(String authHeader, HttpServletRequest request, HttpServletResponse response);
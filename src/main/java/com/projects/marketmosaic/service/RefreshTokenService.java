@@ -0,0 +1,29 @@
+package com.projects.marketmosaic.service;
+
+import com.projects.marketmosaic.entity.UserEntity;
+
+import java.util.Collection;
+
+public interface RefreshTokenService {
+    /**
+     * Starts a new token family, one per session.
+     */
+    Issued issue(UserEntity user);
+
+    Rotation rotate(String refreshToken);
+
+    void revoke(String refreshToken);
+
+    void revokeAll(UserEntity user);
+
+    /**
+     * Revokes the sessions the families belong to, such as the ones evicted past the session cap.
+     */
+    void revokeFamilies(Collection<String> familyIds);
+
+    record Issued(String familyId, String refreshToken) {
+    }
+
+    record Rotation(UserEntity user, String familyId, String refreshToken) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.projects.marketmosaic.service;
+
+import com.projects.marketmosaic.utils.jwt.TokenId;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Cluster-wide source of truth for revoked tokens and active sessions. Expiry times are epoch millis.
+ */
+public interface RevocationStore {
+    /**
+     * Persists the revocations and notifies every subscribed node.
+     */
+    void revoke(Map<TokenId, Long> tokens);
+
+    Map<TokenId, Long> loadRevoked();
+
+    void subscribe(BiConsumer<TokenId, Long> listener);
+
+    void purgeExpired();
+
+    /**
+     * Adds the session, replacing the one of the same refresh family if there is one. If the user
+     * then has more than {@code maxSessions}, the sessions that expire first are removed and
+     * revoked on every node. Unlimited if {@code maxSessions} is not positive.
+     *
+     * @param familyId the refresh token family the session belongs to, or null if it has none
+     */
+    StoredSession storeSession(String username, TokenId tokenId, String familyId, long expiresAt, int maxSessions);
+
+    void removeSession(String username, TokenId tokenId);
+
+    Set<TokenId> getSessions(String username);
+
+    /**
+     * One page of the user's live sessions, soonest to expire first.
+     */
+    List<TokenId> getSessions(String username, int offset, int limit);
+
+    /**
+     * Raises the user's watermark, drops their sessions and notifies every subscribed node in one
+     * atomic step. Tokens issued in an earlier second than the watermark are revoked; sessions
+     * expiring at or after {@code sessionsExpiringFrom} are revoked one by one, as the watermark
+     * does not cover them.
+     *
+     * @param watermark epoch second
+     * @return the sessions revoked one by one, with their expiry
+     */
+    Map<TokenId, Long> revokeIssuedBefore(long userId, String username, long watermark, long sessionsExpiringFrom);
+
+    /**
+     * User id to watermark, in epoch seconds.
+     */
+    Map<Long, Long> loadWatermarks();
+
+    void subscribeWatermarks(BiConsumer<Long, Long> listener);
+
+    void purgeWatermarksBefore(long cutoff);
+
+    /**
+     * The user's session count after storing one, the sessions evicted to make room and the
+     * refresh families of those that had one.
+     */
+    record StoredSession(int sessions, Map<TokenId, Long> evicted, Set<String> evictedFamilies) {
+    }
+}
@@ -1,15 +1,42 @@
 package com.projects.marketmosaic.service;
 
+import com.projects.marketmosaic.entity.UserEntity;
+import com.projects.marketmosaic.utils.jwt.TokenId;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
+
+import java.util.List;
 import java.util.Set;
 
 public interface TokenBlackListService {
-    void blacklistToken(String token);
+    void blacklistToken(VerifiedToken token);
+
+    boolean isTokenBlacklisted(VerifiedToken token);
+
+    /**
+     * Revokes every token issued to the user up to now, on every node.
+     */
+    void invalidateAllUserTokens(UserEntity user);
 
-    boolean isTokenBlacklisted(String token);
+    /**
+     * Registers a new session. Past the per-user session cap the oldest sessions are evicted and
+     * revoked.
+     */
+    default void storeUserToken(String username, VerifiedToken token) {
+        storeUserToken(username, token, null);
+    }
 
-    void invalidateAllUserTokens(String username);
+    /**
+     * Registers the session of a refresh token family, replacing the family's previous one. Past
+     * the per-user session cap the oldest sessions are evicted and their access tokens revoked;
+     * their refresh families are returned for the caller to revoke.
+     */
+    Set<String> storeUserToken(String username, VerifiedToken token, String familyId);
 
-    void storeUserToken(String username, String token);
+    Set<TokenId> getUserTokens(String username);
 
-    Set<String> getUserTokens(String username);
+    /**
+     * One page of the user's sessions, oldest first. Sessions this node knows to be revoked are
+     * left out, so a page can come back short.
+     */
+    List<TokenId> getUserTokens(String username, int offset, int limit);
 }
@@ -5,6 +5,8 @@ import auth.Auth;
 import com.projects.marketmosaic.common.dto.resp.TokenValidationRespDTO;
 import com.projects.marketmosaic.constants.GrpcConstants;
 import com.projects.marketmosaic.service.AuthService;
+import com.projects.marketmosaic.utils.TokenValidator;
+import com.projects.marketmosaic.utils.jwt.TokenValidationResult;
 import io.grpc.stub.StreamObserver;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -17,11 +19,24 @@ import java.util.Collections;
 public class AuthGrpcService extends AuthServiceGrpc.AuthServiceImplBase {
 
     private final AuthService authService;
+    private final TokenValidator tokenValidator;
 
     @Override
     public void validateToken(Auth.TokenRequest request, StreamObserver<Auth.TokenResponse> responseObserver) {
         try {
             String token = GrpcConstants.USER_TOKEN_CTX_KEY.get();
+
+            // Bad tokens are answered here without exceptions or a user lookup
+            TokenValidationResult result = tokenValidator.validate(token);
+            if (!result.isValid()) {
+                responseObserver.onNext(Auth.TokenResponse.newBuilder()
+                        .setValid(false)
+                        .setReason(result.status().name())
+                        .build());
+                responseObserver.onCompleted();
+                return;
+            }
+
             TokenValidationRespDTO tokenValidation = authService.validateToken(token);
 
             var response = Auth.TokenResponse.newBuilder()
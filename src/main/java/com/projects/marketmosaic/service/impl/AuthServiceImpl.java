@@ -15,8 +15,11 @@ import com.projects.marketmosaic.exception.exceptions.AuthException;
 import com.projects.marketmosaic.repositories.PasswordResetTokenRepository;
 import com.projects.marketmosaic.repositories.UserRepository;
 import com.projects.marketmosaic.service.AuthService;
+import com.projects.marketmosaic.service.RefreshTokenService;
 import com.projects.marketmosaic.service.TokenBlackListService;
 import com.projects.marketmosaic.utils.*;
+import com.projects.marketmosaic.utils.jwt.TokenValidationResult;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -35,7 +38,9 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -54,6 +59,8 @@ public class AuthServiceImpl implements AuthService {
     private final TokenBlackListService tokenBlackListService;
     private final CookieUtils cookieUtils;
     private final EmailUtils emailUtils;
+    private final TokenValidator tokenValidator;
+    private final RefreshTokenService refreshTokenService;
 
     @Override
     @Transactional
@@ -61,8 +68,9 @@ public class AuthServiceImpl implements AuthService {
         BaseRespDTO respDTO = new BaseRespDTO();
         try {
             // Check if account is locked
-            if (loginAttemptTracker.isAccountLocked(loginReqDTO.getUsername())) {
-                return getLockoutResponse(loginReqDTO.getUsername());
+            LoginAttemptTracker.LoginAttempts attempts = loginAttemptTracker.check(loginReqDTO.getUsername());
+            if (attempts.isLocked()) {
+                return getLockoutResponse(attempts.lockedUntil());
             }
 
             Authentication authenticated = authenticationManager.authenticate(
@@ -77,10 +85,13 @@ public class AuthServiceImpl implements AuthService {
             // Generate the JWT token with user details
             String token = jwtUtils.generateToken(userDetails, user);
 
-            // Store the token for session management
-            tokenBlackListService.storeUserToken(loginReqDTO.getUsername(), token);
+            // Store the token for session management, the session is the refresh token's family
+            RefreshTokenService.Issued refresh = refreshTokenService.issue(user);
+            refreshTokenService.revokeFamilies(tokenBlackListService.storeUserToken(loginReqDTO.getUsername(),
+                    jwtUtils.verify(token), refresh.familyId()));
 
             cookieUtils.createJwtCookie(response, token);
+            cookieUtils.createRefreshCookie(response, refresh.refreshToken());
 
             SecurityContextHolder.getContext().setAuthentication(authenticated);
 
@@ -100,6 +111,38 @@ public class AuthServiceImpl implements AuthService {
         return respDTO;
     }
 
+    @Override
+    public BaseRespDTO refreshToken(HttpServletRequest request, HttpServletResponse response) {
+        String refreshToken = cookieUtils.extractRefreshTokenFromCookies(request);
+        if (refreshToken == null) {
+            throw AuthException.invalidToken(ErrorMessages.NO_TOKEN_FOUND);
+        }
+
+        RefreshTokenService.Rotation rotation;
+        try {
+            rotation = refreshTokenService.rotate(refreshToken);
+        } catch (AuthException ae) {
+            cookieUtils.clearJwtCookie(response);
+            cookieUtils.clearRefreshCookie(response);
+            throw ae;
+        }
+
+        UserEntity user = rotation.user();
+        String token = jwtUtils.generateToken(CustomUserDetails.builder().username(user.getUsername()).build(), user);
+        // Takes the place of the session the family had, the device is not counted twice
+        refreshTokenService.revokeFamilies(tokenBlackListService.storeUserToken(user.getUsername(),
+                jwtUtils.verify(token), rotation.familyId()));
+
+        cookieUtils.createJwtCookie(response, token);
+        cookieUtils.createRefreshCookie(response, rotation.refreshToken());
+
+        BaseRespDTO respDTO = new BaseRespDTO();
+        respDTO.setMessage("Token refreshed successfully");
+        respDTO.setStatus(true);
+        respDTO.setCode("200");
+        return respDTO;
+    }
+
     @Override
     public BaseRespDTO logout(String authHeader, HttpServletRequest request, HttpServletResponse response) {
         // First try to get token from cookie
@@ -114,11 +157,21 @@ public class AuthServiceImpl implements AuthService {
             throw AuthException.invalidToken(ErrorMessages.NO_TOKEN_FOUND);
         }
 
-        tokenBlackListService.blacklistToken(token);
+        // Expired and forged tokens are rejected anyway, only a valid one needs revoking
+        TokenValidationResult result = jwtUtils.validate(token);
+        if (result.isValid()) {
+            tokenBlackListService.blacklistToken(result.token());
+        }
         SecurityContextHolder.clearContext();
 
-        // Clear the JWT cookie
+        String refreshToken = cookieUtils.extractRefreshTokenFromCookies(request);
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
+
+        // Clear the JWT cookies
         cookieUtils.clearJwtCookie(response);
+        cookieUtils.clearRefreshCookie(response);
 
         BaseRespDTO respDTO = new BaseRespDTO();
         respDTO.setMessage("Logged out successfully");
@@ -130,11 +183,14 @@ public class AuthServiceImpl implements AuthService {
     @Override
     public BaseRespDTO logoutAllSessions(String authHeader, HttpServletRequest request, HttpServletResponse response) {
         String username = securityUtils.validateAndExtractUsername(request);
-        tokenBlackListService.invalidateAllUserTokens(username);
+        UserEntity user = securityUtils.getUserByUsername(username);
+        tokenBlackListService.invalidateAllUserTokens(user);
+        refreshTokenService.revokeAll(user);
         SecurityContextHolder.clearContext();
 
-        // Clear the JWT cookie
+        // Clear the JWT cookies
         cookieUtils.clearJwtCookie(response);
+        cookieUtils.clearRefreshCookie(response);
 
         BaseRespDTO respDTO = new BaseRespDTO();
         respDTO.setMessage("All sessions logged out successfully");
@@ -195,15 +251,13 @@ public class AuthServiceImpl implements AuthService {
         response.setValid(false);
 
         try {
-            if (token == null) {
-                return response;
-            }
-
-            if (tokenBlackListService.isTokenBlacklisted(token)) {
+            TokenValidationResult result = tokenValidator.validate(token);
+            if (!result.isValid()) {
                 return response;
             }
 
-            String username = jwtUtils.extractUsername(token);
+            VerifiedToken verifiedToken = result.token();
+            String username = verifiedToken.subject();
             if (username == null) {
                 return response;
             }
@@ -216,7 +270,7 @@ public class AuthServiceImpl implements AuthService {
                     .authorities(user.getRole())
                     .build();
 
-            if (Boolean.FALSE.equals(jwtUtils.validateToken(token, userDetails))) {
+            if (!jwtUtils.validateToken(verifiedToken, userDetails)) {
                 return response;
             }
 
@@ -311,14 +365,21 @@ public class AuthServiceImpl implements AuthService {
             tokenValidationRespDTO.setValid(true);
             tokenValidationRespDTO.setUserId(userDetails.getUserId());
             tokenValidationRespDTO.setEmail(userDetails.getEmail());
+            tokenValidationRespDTO.setName(userDetails.getName());
+            if (userDetails.getEmail() == null) {
+                // Compact tokens in stateless mode carry no PII, look it up on demand
+                UserEntity user = securityUtils.getUserByUsername(userDetails.getUsername());
+                tokenValidationRespDTO.setEmail(user.getEmail());
+                tokenValidationRespDTO.setName(user.getName());
+            }
             tokenValidationRespDTO.setUsername(userDetails.getUsername());
             tokenValidationRespDTO.setAuthorities(userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
         }
         return tokenValidationRespDTO;
     }
 
-    private BaseRespDTO getLockoutResponse(String username) {
-        LocalDateTime lockoutTime = loginAttemptTracker.getLockoutTime(username);
+    private BaseRespDTO getLockoutResponse(long lockedUntil) {
+        LocalDateTime lockoutTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(lockedUntil), ZoneId.systemDefault());
         String formattedTime = lockoutTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
 
         BaseRespDTO respDTO = new BaseRespDTO();
@@ -0,0 +1,167 @@
+package com.projects.marketmosaic.service.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Open addressing {@link RevocationTable} stored as {@code high, low, expiresAt} triples in a
+ * single {@code long[]}: 24 bytes per slot and no object per entry. An expiry of 0 marks a free
+ * slot and a negative one a removed entry that probes walk past.
+ * <p>
+ * Writers lock the table, readers do not. A slot's key is written before its expiry is
+ * published with release semantics, so a reader that sees the expiry also sees the key.
+ * <p>
+ * Every entry is scheduled on a {@link TimingWheel} at its expiry and removed when its tick
+ * comes, so expired entries go away continuously instead of in periodic full scans. The array
+ * is rebuilt when removed slots pile up or the table is mostly empty.
+ */
+final class HeapRevocationTable implements RevocationTable {
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int STRIDE = 3;
+    private static final long REMOVED = -1;
+    private static final long TICK_MILLIS = 1000;
+
+    private volatile long[] slots = new long[MIN_CAPACITY * STRIDE];
+    private int size;
+    private int removed;
+    private final TimingWheel expiries = new TimingWheel(TICK_MILLIS, System.currentTimeMillis(),
+            slot -> slots[slot * STRIDE + 2]);
+
+    @Override
+    public long expiresAt(long high, long low) {
+        long[] table = slots;
+        int mask = table.length / STRIDE - 1;
+        for (int slot = RevocationTable.index(high, low) & mask; ; slot = (slot + 1) & mask) {
+            int base = slot * STRIDE;
+            long expiresAt = (long) SLOTS.getAcquire(table, base + 2);
+            if (expiresAt == 0) {
+                return 0;
+            }
+            if (expiresAt > 0 && table[base] == high && table[base + 1] == low) {
+                return expiresAt;
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean put(long high, long low, long expiresAt) {
+        if (expiresAt <= 0) {
+            throw new IllegalArgumentException("Expiry must be positive");
+        }
+        long[] table = slots;
+        int capacity = table.length / STRIDE;
+        // Removed slots still lengthen probe chains, so they count towards the 3/4 load factor
+        if ((size + removed + 1) * 4L > capacity * 3L) {
+            table = rebuild(RevocationTable.capacityFor(size + 1));
+        }
+
+        int mask = table.length / STRIDE - 1;
+        int reusable = -1;
+        for (int slot = RevocationTable.index(high, low) & mask; ; slot = (slot + 1) & mask) {
+            int base = slot * STRIDE;
+            long current = table[base + 2];
+            if (current == 0) {
+                if (reusable >= 0) {
+                    slot = reusable;
+                    base = slot * STRIDE;
+                    removed--;
+                }
+                table[base] = high;
+                table[base + 1] = low;
+                SLOTS.setRelease(table, base + 2, expiresAt);
+                size++;
+                expiries.schedule(slot, expiresAt);
+                return true;
+            }
+            if (current < 0) {
+                if (reusable < 0) {
+                    reusable = slot;
+                }
+            } else if (table[base] == high && table[base + 1] == low) {
+                if (expiresAt > current) {
+                    SLOTS.setRelease(table, base + 2, expiresAt);
+                    expiries.schedule(slot, expiresAt);
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    // Costs O(1) per expired entry; no other entry is looked at
+    @Override
+    public synchronized int expire(long now) {
+        long[] table = slots;
+        int before = size;
+        expiries.advanceTo(now, slot -> {
+            long expiresAt = table[slot * STRIDE + 2];
+            // The slot may have been removed already or its entry renewed since it was scheduled
+            if (expiresAt > 0 && expiresAt <= now) {
+                SLOTS.setRelease(table, slot * STRIDE + 2, REMOVED);
+                size--;
+                removed++;
+            }
+        });
+        int capacity = table.length / STRIDE;
+        if (capacity > MIN_CAPACITY && size * 8L < capacity) {
+            // Give memory back once the table is mostly empty
+            rebuild(RevocationTable.capacityFor(size));
+        }
+        return before - size;
+    }
+
+    @Override
+    public void forEach(EntryConsumer consumer) {
+        long[] table = slots;
+        for (int base = 0; base < table.length; base += STRIDE) {
+            long expiresAt = (long) SLOTS.getAcquire(table, base + 2);
+            if (expiresAt > 0) {
+                consumer.accept(table[base], table[base + 1], expiresAt);
+            }
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized long memoryBytes() {
+        return (long) slots.length * Long.BYTES + expiries.memoryBytes();
+    }
+
+    // Copies live entries into a new array, publishes it and reschedules them by their new slots
+    private long[] rebuild(int capacity) {
+        long[] table = slots;
+        long[] rebuilt = new long[capacity * STRIDE];
+        int mask = capacity - 1;
+        expiries.clear();
+        int count = 0;
+        for (int base = 0; base < table.length; base += STRIDE) {
+            long expiresAt = table[base + 2];
+            if (expiresAt <= 0) {
+                continue;
+            }
+            long high = table[base];
+            long low = table[base + 1];
+            int slot = RevocationTable.index(high, low) & mask;
+            while (rebuilt[slot * STRIDE + 2] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            rebuilt[slot * STRIDE] = high;
+            rebuilt[slot * STRIDE + 1] = low;
+            rebuilt[slot * STRIDE + 2] = expiresAt;
+            count++;
+        }
+        size = count;
+        removed = 0;
+        slots = rebuilt;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (rebuilt[slot * STRIDE + 2] != 0) {
+                expiries.schedule(slot, rebuilt[slot * STRIDE + 2]);
+            }
+        }
+        return rebuilt;
+    }
+}
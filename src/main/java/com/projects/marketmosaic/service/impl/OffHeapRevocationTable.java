@@ -0,0 +1,184 @@
+package com.projects.marketmosaic.service.impl;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.VarHandle;
+
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+/**
+ * {@link HeapRevocationTable} with its slots in native memory: the same {@code high, low,
+ * expiresAt} triples and probing, in a {@link MemorySegment} instead of a {@code long[]}. Millions
+ * of revocations then cost the Java heap nothing but the {@link TimingWheel}'s handles, and the
+ * collector never scans or copies them.
+ * <p>
+ * A reader may still be probing a segment that a rebuild has replaced, so segments are not freed
+ * explicitly: each comes from an automatic arena and is released once it is unreachable.
+ */
+final class OffHeapRevocationTable implements RevocationTable {
+    private static final long SLOT_BYTES = 3 * Long.BYTES;
+    private static final long EXPIRES_AT = 2 * Long.BYTES;
+    private static final long REMOVED = -1;
+    private static final long TICK_MILLIS = 1000;
+
+    private volatile MemorySegment slots = allocate(MIN_CAPACITY);
+    private int size;
+    private int removed;
+    private final TimingWheel expiries = new TimingWheel(TICK_MILLIS, System.currentTimeMillis(),
+            slot -> slots.get(JAVA_LONG, slot * SLOT_BYTES + EXPIRES_AT));
+
+    @Override
+    public long expiresAt(long high, long low) {
+        MemorySegment table = slots;
+        long mask = table.byteSize() / SLOT_BYTES - 1;
+        for (long slot = RevocationTable.index(high, low) & mask; ; slot = (slot + 1) & mask) {
+            long base = slot * SLOT_BYTES;
+            long expiresAt = table.get(JAVA_LONG, base + EXPIRES_AT);
+            // Pairs with the release fence in put: the key is read after the expiry
+            VarHandle.acquireFence();
+            if (expiresAt == 0) {
+                return 0;
+            }
+            if (expiresAt > 0 && table.get(JAVA_LONG, base) == high
+                    && table.get(JAVA_LONG, base + Long.BYTES) == low) {
+                return expiresAt;
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean put(long high, long low, long expiresAt) {
+        if (expiresAt <= 0) {
+            throw new IllegalArgumentException("Expiry must be positive");
+        }
+        MemorySegment table = slots;
+        long capacity = table.byteSize() / SLOT_BYTES;
+        // Removed slots still lengthen probe chains, so they count towards the 3/4 load factor
+        if ((size + removed + 1) * 4L > capacity * 3L) {
+            table = rebuild(RevocationTable.capacityFor(size + 1));
+        }
+
+        long mask = table.byteSize() / SLOT_BYTES - 1;
+        long reusable = -1;
+        for (long slot = RevocationTable.index(high, low) & mask; ; slot = (slot + 1) & mask) {
+            long base = slot * SLOT_BYTES;
+            long current = table.get(JAVA_LONG, base + EXPIRES_AT);
+            if (current == 0) {
+                if (reusable >= 0) {
+                    slot = reusable;
+                    base = slot * SLOT_BYTES;
+                    removed--;
+                }
+                table.set(JAVA_LONG, base, high);
+                table.set(JAVA_LONG, base + Long.BYTES, low);
+                publish(table, base, expiresAt);
+                size++;
+                expiries.schedule((int) slot, expiresAt);
+                return true;
+            }
+            if (current < 0) {
+                if (reusable < 0) {
+                    reusable = slot;
+                }
+            } else if (table.get(JAVA_LONG, base) == high && table.get(JAVA_LONG, base + Long.BYTES) == low) {
+                if (expiresAt > current) {
+                    publish(table, base, expiresAt);
+                    expiries.schedule((int) slot, expiresAt);
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public synchronized int expire(long now) {
+        MemorySegment table = slots;
+        int before = size;
+        expiries.advanceTo(now, slot -> {
+            long base = slot * SLOT_BYTES;
+            long expiresAt = table.get(JAVA_LONG, base + EXPIRES_AT);
+            // The slot may have been removed already or its entry renewed since it was scheduled
+            if (expiresAt > 0 && expiresAt <= now) {
+                publish(table, base, REMOVED);
+                size--;
+                removed++;
+            }
+        });
+        long capacity = table.byteSize() / SLOT_BYTES;
+        if (capacity > MIN_CAPACITY && size * 8L < capacity) {
+            // Give memory back once the table is mostly empty
+            rebuild(RevocationTable.capacityFor(size));
+        }
+        return before - size;
+    }
+
+    @Override
+    public void forEach(EntryConsumer consumer) {
+        MemorySegment table = slots;
+        for (long base = 0; base < table.byteSize(); base += SLOT_BYTES) {
+            long expiresAt = table.get(JAVA_LONG, base + EXPIRES_AT);
+            VarHandle.acquireFence();
+            if (expiresAt > 0) {
+                consumer.accept(table.get(JAVA_LONG, base), table.get(JAVA_LONG, base + Long.BYTES), expiresAt);
+            }
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized long memoryBytes() {
+        return slots.byteSize() + expiries.memoryBytes();
+    }
+
+    private static MemorySegment allocate(int capacity) {
+        // Automatic arenas hand out zeroed memory, so every slot starts free
+        return Arena.ofAuto().allocate(capacity * SLOT_BYTES, Long.BYTES);
+    }
+
+    // The key is written before the expiry, so a reader that sees the expiry also sees the key
+    private static void publish(MemorySegment table, long base, long expiresAt) {
+        VarHandle.releaseFence();
+        table.set(JAVA_LONG, base + EXPIRES_AT, expiresAt);
+    }
+
+    // Copies live entries into a new segment, publishes it and reschedules them by their new slots
+    private MemorySegment rebuild(int capacity) {
+        MemorySegment table = slots;
+        MemorySegment rebuilt = allocate(capacity);
+        long mask = capacity - 1;
+        expiries.clear();
+        int count = 0;
+        for (long base = 0; base < table.byteSize(); base += SLOT_BYTES) {
+            long expiresAt = table.get(JAVA_LONG, base + EXPIRES_AT);
+            if (expiresAt <= 0) {
+                continue;
+            }
+            long high = table.get(JAVA_LONG, base);
+            long low = table.get(JAVA_LONG, base + Long.BYTES);
+            long slot = RevocationTable.index(high, low) & mask;
+            while (rebuilt.get(JAVA_LONG, slot * SLOT_BYTES + EXPIRES_AT) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            rebuilt.set(JAVA_LONG, slot * SLOT_BYTES, high);
+            rebuilt.set(JAVA_LONG, slot * SLOT_BYTES + Long.BYTES, low);
+            rebuilt.set(JAVA_LONG, slot * SLOT_BYTES + EXPIRES_AT, expiresAt);
+            count++;
+        }
+        size = count;
+        removed = 0;
+        // Volatile write: the copied slots are visible to any reader that picks up the segment
+        slots = rebuilt;
+        for (int slot = 0; slot < capacity; slot++) {
+            long expiresAt = rebuilt.get(JAVA_LONG, slot * SLOT_BYTES + EXPIRES_AT);
+            if (expiresAt != 0) {
+                expiries.schedule(slot, expiresAt);
+            }
+        }
+        return rebuilt;
+    }
+}
@@ -0,0 +1,295 @@
+package com.projects.marketmosaic.service.impl;
+
+import com.projects.marketmosaic.service.RevocationStore;
+import com.projects.marketmosaic.utils.AuthRedisManager;
+import com.projects.marketmosaic.utils.jwt.TokenDigest;
+import com.projects.marketmosaic.utils.jwt.TokenId;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Revocations live in one sorted set scored by expiry, so a node can load every live entry
+ * with a single range query and expired ones are trimmed by score. Sessions use one sorted set
+ * per user. Members are {@link TokenId}s; new revocations are broadcast on a channel as
+ * {@code "<expiry> <id>"} lines. Sessions past the per-user cap are evicted and revoked by the
+ * same script that stores the new one. A session that belongs to a refresh family is linked to it
+ * in a per-user hash, {@code "f:<family>"} to the session and {@code "t:<session>"} back, so a
+ * refresh replaces its family's session instead of adding one and an eviction names the family to
+ * revoke. Logout-all watermarks live in a sorted set scored by the
+ * watermark and have their own channel.
+ */
+@Slf4j
+@Component
+public class RedisRevocationStore implements RevocationStore {
+    static final String REVOKED_KEY = "auth:revoked";
+    static final String SESSIONS_KEY_PREFIX = "auth:sessions:";
+    static final String FAMILIES_KEY_PREFIX = "auth:session-families:";
+    static final String CHANNEL = "auth:revocations";
+    static final String WATERMARKS_KEY = "auth:watermarks";
+    static final String WATERMARKS_CHANNEL = "auth:watermarks";
+
+    private static final int ID_LENGTH = 22;
+
+    // Trims the user's expired sessions on the way, so cleanup never has to scan other users. The
+    // family's previous session is replaced. Past the cap the sessions that expire first make room
+    // and are revoked in the same step.
+    private static final RedisScript<List> STORE_SESSION = RedisScript.of("""
+            local function forget(member)
+                local family = redis.call('HGET', KEYS[3], 't:' .. member)
+                if family then
+                    redis.call('HDEL', KEYS[3], 't:' .. member)
+                    if redis.call('HGET', KEYS[3], 'f:' .. family) == member then
+                        redis.call('HDEL', KEYS[3], 'f:' .. family)
+                    end
+                end
+                return family
+            end
+            for _, member in ipairs(redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[3])) do
+                forget(member)
+            end
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[3])
+            if ARGV[6] ~= '' then
+                local previous = redis.call('HGET', KEYS[3], 'f:' .. ARGV[6])
+                if previous and previous ~= ARGV[1] then
+                    redis.call('ZREM', KEYS[1], previous)
+                    forget(previous)
+                end
+            end
+            local evicted = {}
+            local families = {}
+            local max = tonumber(ARGV[4])
+            if max > 0 and not redis.call('ZSCORE', KEYS[1], ARGV[1]) then
+                local excess = redis.call('ZCARD', KEYS[1]) - max + 1
+                if excess > 0 then
+                    evicted = redis.call('ZPOPMIN', KEYS[1], excess)
+                    local lines = {}
+                    for i = 1, #evicted, 2 do
+                        redis.call('ZADD', KEYS[2], evicted[i + 1], evicted[i])
+                        lines[#lines + 1] = evicted[i + 1] .. ' ' .. evicted[i]
+                        local family = forget(evicted[i])
+                        if family then
+                            families[#families + 1] = family
+                        end
+                    end
+                    redis.call('PUBLISH', ARGV[5], table.concat(lines, '\\n'))
+                end
+            end
+            redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+            if ARGV[6] ~= '' then
+                redis.call('HSET', KEYS[3], 'f:' .. ARGV[6], ARGV[1], 't:' .. ARGV[1], ARGV[6])
+            end
+            local last = redis.call('ZRANGE', KEYS[1], -1, -1, 'WITHSCORES')
+            redis.call('PEXPIREAT', KEYS[1], last[2])
+            redis.call('PEXPIREAT', KEYS[3], last[2])
+            table.insert(evicted, 1, families)
+            table.insert(evicted, 1, redis.call('ZCARD', KEYS[1]))
+            return evicted
+            """, List.class);
+
+    private static final RedisScript<Void> REMOVE_SESSION = RedisScript.of("""
+            redis.call('ZREM', KEYS[1], ARGV[1])
+            local family = redis.call('HGET', KEYS[2], 't:' .. ARGV[1])
+            if family then
+                redis.call('HDEL', KEYS[2], 't:' .. ARGV[1], 'f:' .. family)
+            end
+            """);
+
+    // Sessions are trimmed lazily, whenever they are read or added to
+    private static final RedisScript<List> SESSIONS = RedisScript.of("""
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[1])
+            return redis.call('ZRANGE', KEYS[1], ARGV[2], ARGV[3])
+            """, List.class);
+
+    // Sessions of the watermark's own second are revoked one by one. Watermarks only move forward,
+    // a peer with a slower clock cannot lower one, and are only broadcast when they do.
+    private static final RedisScript<List> REVOKE_ISSUED_BEFORE = RedisScript.of("""
+            local sessions = redis.call('ZRANGEBYSCORE', KEYS[2], ARGV[4], '+inf', 'WITHSCORES')
+            if #sessions > 0 then
+                local lines = {}
+                for i = 1, #sessions, 2 do
+                    redis.call('ZADD', KEYS[4], sessions[i + 1], sessions[i])
+                    lines[#lines + 1] = sessions[i + 1] .. ' ' .. sessions[i]
+                end
+                redis.call('PUBLISH', ARGV[5], table.concat(lines, '\\n'))
+            end
+            redis.call('DEL', KEYS[2], KEYS[3])
+            local current = redis.call('ZSCORE', KEYS[1], ARGV[1])
+            if not current or tonumber(current) < tonumber(ARGV[2]) then
+                redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+                redis.call('PUBLISH', ARGV[3], ARGV[2] .. ' ' .. ARGV[1])
+            end
+            return sessions
+            """, List.class);
+
+    private final AuthRedisManager redisManager;
+
+    public RedisRevocationStore(AuthRedisManager redisManager) {
+        this.redisManager = redisManager;
+    }
+
+    @Override
+    public void revoke(Map<TokenId, Long> tokens) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<String>> entries = tokens.entrySet().stream()
+                .map(entry -> ZSetOperations.TypedTuple.of(entry.getKey().toString(), entry.getValue().doubleValue()))
+                .collect(Collectors.toSet());
+        redisManager.addToSortedSet(REVOKED_KEY, entries);
+
+        String message = tokens.entrySet().stream()
+                .map(entry -> entry.getValue() + " " + entry.getKey())
+                .collect(Collectors.joining("\n"));
+        redisManager.publish(CHANNEL, message);
+    }
+
+    @Override
+    public Map<TokenId, Long> loadRevoked() {
+        return rangeFromNow(REVOKED_KEY);
+    }
+
+    @Override
+    public void subscribe(BiConsumer<TokenId, Long> listener) {
+        listen(CHANNEL, (member, expiresAt) -> listener.accept(toId(member), expiresAt));
+    }
+
+    @Override
+    public void purgeExpired() {
+        Long removed = redisManager.removeRangeByScore(REVOKED_KEY, 0, System.currentTimeMillis());
+        if (removed != null && removed > 0) {
+            log.debug("Purged {} expired revocations", removed);
+        }
+    }
+
+    @Override
+    public StoredSession storeSession(String username, TokenId tokenId, String familyId, long expiresAt,
+                                      int maxSessions) {
+        List<?> result = redisManager.execute(STORE_SESSION,
+                List.of(SESSIONS_KEY_PREFIX + username, REVOKED_KEY, FAMILIES_KEY_PREFIX + username),
+                tokenId.toString(), String.valueOf(expiresAt), String.valueOf(System.currentTimeMillis()),
+                String.valueOf(maxSessions), CHANNEL, familyId == null ? "" : familyId);
+        if (result == null || result.isEmpty()) {
+            return new StoredSession(0, Map.of(), Set.of());
+        }
+        // The session count, the evicted families, then member, score pairs as ZPOPMIN returns them
+        Map<TokenId, Long> evicted = memberScores(result, 2);
+        Set<String> families = new HashSet<>();
+        for (Object family : (List<?>) result.get(1)) {
+            families.add((String) family);
+        }
+        return new StoredSession(((Number) result.get(0)).intValue(), evicted, families);
+    }
+
+    @Override
+    public void removeSession(String username, TokenId tokenId) {
+        redisManager.execute(REMOVE_SESSION, List.of(SESSIONS_KEY_PREFIX + username, FAMILIES_KEY_PREFIX + username),
+                tokenId.toString());
+    }
+
+    @Override
+    public Set<TokenId> getSessions(String username) {
+        return new HashSet<>(sessions(username, 0, -1));
+    }
+
+    @Override
+    public List<TokenId> getSessions(String username, int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("Offset must not be negative and limit must be positive");
+        }
+        return sessions(username, offset, (long) offset + limit - 1);
+    }
+
+    @Override
+    public Map<TokenId, Long> revokeIssuedBefore(long userId, String username, long watermark,
+                                                 long sessionsExpiringFrom) {
+        List<?> result = redisManager.execute(REVOKE_ISSUED_BEFORE,
+                List.of(WATERMARKS_KEY, SESSIONS_KEY_PREFIX + username, FAMILIES_KEY_PREFIX + username, REVOKED_KEY),
+                String.valueOf(userId), String.valueOf(watermark), WATERMARKS_CHANNEL,
+                String.valueOf(sessionsExpiringFrom), CHANNEL);
+        return memberScores(result, 0);
+    }
+
+    @Override
+    public Map<Long, Long> loadWatermarks() {
+        Map<Long, Long> watermarks = new HashMap<>();
+        range(WATERMARKS_KEY, Double.NEGATIVE_INFINITY).forEach((userId, watermark) ->
+                watermarks.put(Long.parseLong(userId), watermark));
+        return watermarks;
+    }
+
+    @Override
+    public void subscribeWatermarks(BiConsumer<Long, Long> listener) {
+        listen(WATERMARKS_CHANNEL, (userId, watermark) -> listener.accept(Long.parseLong(userId), watermark));
+    }
+
+    @Override
+    public void purgeWatermarksBefore(long cutoff) {
+        redisManager.removeRangeByScore(WATERMARKS_KEY, Double.NEGATIVE_INFINITY, cutoff);
+    }
+
+    // Messages are "<score> <member>" lines
+    private void listen(String channel, BiConsumer<String, Long> listener) {
+        redisManager.subscribe(channel, (message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.US_ASCII);
+            for (String line : body.split("\n")) {
+                int separator = line.indexOf(' ');
+                if (separator > 0) {
+                    listener.accept(line.substring(separator + 1), Long.parseLong(line.substring(0, separator)));
+                }
+            }
+        });
+    }
+
+    // Ranks of the live sessions, soonest to expire first; -1 stops at the last one
+    private List<TokenId> sessions(String username, long start, long stop) {
+        List<?> members = redisManager.execute(SESSIONS, List.of(SESSIONS_KEY_PREFIX + username),
+                String.valueOf(System.currentTimeMillis()), String.valueOf(start), String.valueOf(stop));
+        if (members == null) {
+            return List.of();
+        }
+        return members.stream().map(member -> toId((String) member)).toList();
+    }
+
+    // Member, score pairs as ZPOPMIN and WITHSCORES return them
+    private static Map<TokenId, Long> memberScores(List<?> result, int from) {
+        Map<TokenId, Long> tokens = new HashMap<>();
+        if (result != null) {
+            for (int i = from; i + 1 < result.size(); i += 2) {
+                tokens.put(toId((String) result.get(i)), (long) Double.parseDouble((String) result.get(i + 1)));
+            }
+        }
+        return tokens;
+    }
+
+    private Map<TokenId, Long> rangeFromNow(String key) {
+        Map<TokenId, Long> tokens = new HashMap<>();
+        range(key, System.currentTimeMillis()).forEach((member, expiresAt) -> tokens.put(toId(member), expiresAt));
+        return tokens;
+    }
+
+    private Map<String, Long> range(String key, double minScore) {
+        Set<ZSetOperations.TypedTuple<String>> entries = redisManager.rangeByScore(key, minScore,
+                Double.POSITIVE_INFINITY);
+        Map<String, Long> members = new HashMap<>();
+        if (entries != null) {
+            entries.forEach(entry -> members.put(entry.getValue(), entry.getScore().longValue()));
+        }
+        return members;
+    }
+
+    // Entries written before tokens carried a jti hold the whole token, which verifies to its digest
+    private static TokenId toId(String member) {
+        return member.length() == ID_LENGTH ? TokenId.parse(member) : TokenId.of(TokenDigest.of(member));
+    }
+}
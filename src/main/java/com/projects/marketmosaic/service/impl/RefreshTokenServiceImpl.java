@@ -0,0 +1,127 @@
+package com.projects.marketmosaic.service.impl;
+
+import com.projects.marketmosaic.constants.ErrorMessages;
+import com.projects.marketmosaic.entity.RefreshTokenEntity;
+import com.projects.marketmosaic.entity.UserEntity;
+import com.projects.marketmosaic.exception.exceptions.AuthException;
+import com.projects.marketmosaic.repositories.RefreshTokenRepository;
+import com.projects.marketmosaic.service.RefreshTokenService;
+import com.projects.marketmosaic.service.TokenBlackListService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Opaque refresh tokens stored as hashes. Every refresh consumes the presented token and hands
+ * out a new one of the same family; presenting a consumed token again means it leaked, so the
+ * whole family and the user's access tokens are revoked.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenBlackListService tokenBlackListService;
+
+    @Value("${jwt.refresh-token.ttl:P14D}")
+    private Duration refreshTokenTtl;
+
+    @Override
+    @Transactional
+    public Issued issue(UserEntity user) {
+        String familyId = UUID.randomUUID().toString();
+        return new Issued(familyId, store(user, familyId));
+    }
+
+    @Override
+    @Transactional(noRollbackFor = AuthException.class)
+    public Rotation rotate(String refreshToken) {
+        RefreshTokenEntity current = refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .orElseThrow(() -> AuthException.invalidToken(ErrorMessages.INVALID_REFRESH_TOKEN));
+
+        if (current.getExpiryDate().isBefore(LocalDateTime.now())) {
+            refreshTokenRepository.delete(current);
+            throw AuthException.invalidToken(ErrorMessages.INVALID_REFRESH_TOKEN);
+        }
+
+        if (refreshTokenRepository.markUsed(current.getId()) == 0) {
+            UserEntity user = current.getUser();
+            log.warn("Refresh token reuse detected for user {}, revoking token family {}",
+                    user.getUsername(), current.getFamilyId());
+            refreshTokenRepository.deleteByFamilyId(current.getFamilyId());
+            tokenBlackListService.invalidateAllUserTokens(user);
+            throw AuthException.invalidToken(ErrorMessages.REFRESH_TOKEN_REUSED);
+        }
+
+        return new Rotation(current.getUser(), current.getFamilyId(), store(current.getUser(), current.getFamilyId()));
+    }
+
+    @Override
+    @Transactional
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .ifPresent(token -> refreshTokenRepository.deleteByFamilyId(token.getFamilyId()));
+    }
+
+    @Override
+    @Transactional
+    public void revokeAll(UserEntity user) {
+        refreshTokenRepository.deleteByUser(user);
+    }
+
+    @Override
+    @Transactional
+    public void revokeFamilies(Collection<String> familyIds) {
+        if (!familyIds.isEmpty()) {
+            refreshTokenRepository.deleteByFamilyIdIn(familyIds);
+        }
+    }
+
+    @Transactional
+    @Scheduled(fixedRate = 60 * 60 * 1000) // Run every hour
+    public void cleanupExpiredTokens() {
+        int removed = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            log.debug("Removed {} expired refresh tokens", removed);
+        }
+    }
+
+    private String store(UserEntity user, String familyId) {
+        byte[] secret = new byte[32];
+        RANDOM.nextBytes(secret);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+
+        RefreshTokenEntity entity = new RefreshTokenEntity();
+        entity.setTokenHash(hash(token));
+        entity.setFamilyId(familyId);
+        entity.setUser(user);
+        entity.setExpiryDate(LocalDateTime.now().plus(refreshTokenTtl));
+        refreshTokenRepository.save(entity);
+        return token;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
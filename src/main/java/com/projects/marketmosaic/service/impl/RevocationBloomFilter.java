@@ -0,0 +1,227 @@
+package com.projects.marketmosaic.service.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent Bloom filter over revoked tokens, split into partitions by expiry time. A token
+ * expiring at {@code e} goes into the partition of slice {@code e / sliceMillis}; once that
+ * slice is in the past every entry in it has expired, and the partition is cleared and reused
+ * for a new slice. The horizon covered by the live slices is at least the revocation TTL.
+ * <p>
+ * Blocked layout: each key sets its bits inside one 512 bit block, so a lookup touches one
+ * cache line per partition.
+ * <p>
+ * Never answers "not revoked" for a live entry. Entries expiring beyond the horizon (a peer
+ * with a longer TTL) cannot be placed safely, so the filter is bypassed until they expire.
+ */
+final class RevocationBloomFilter {
+    private static final int BLOCK_BITS = 512;
+    private static final int WORDS_PER_BLOCK = BLOCK_BITS / Long.SIZE;
+    // Peers stamp expiry with their own clock
+    private static final long CLOCK_SKEW_MILLIS = 60_000;
+
+    private final Partition[] partitions;
+    private final long sliceMillis;
+    private final int hashFunctions;
+
+    private final AtomicLong bypassUntil = new AtomicLong();
+
+    private final LongAdder falsePositives = new LongAdder();
+
+    RevocationBloomFilter(long retentionMillis, int partitionCount, int expectedInsertionsPerPartition,
+                          double falsePositiveRate) {
+        if (partitionCount < 3) {
+            throw new IllegalArgumentException("At least three partitions are needed to rotate");
+        }
+        // partitionCount - 2 slices cover the retention; of the other two, one is the current slice and
+        // one is a full slice in the past that can be recycled without racing readers near the boundary
+        long horizon = retentionMillis + CLOCK_SKEW_MILLIS;
+        this.sliceMillis = (horizon + partitionCount - 3) / (partitionCount - 2);
+
+        double ln2 = Math.log(2);
+        // Blocking costs some accuracy, sizing like a classic filter for half the rate makes up for it
+        long bits = (long) Math.ceil(-expectedInsertionsPerPartition * Math.log(falsePositiveRate / 2) / (ln2 * ln2));
+        int blocks = (int) Math.max(1, (bits + BLOCK_BITS - 1) / BLOCK_BITS);
+        this.hashFunctions = Math.max(1, (int) Math.round((double) blocks * BLOCK_BITS / expectedInsertionsPerPartition * ln2));
+
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(blocks);
+        }
+    }
+
+    void put(long high, long low, long expiresAt) {
+        long now = System.currentTimeMillis();
+        if (expiresAt <= now) {
+            return;
+        }
+        long slice = expiresAt / sliceMillis;
+        if (slice - now / sliceMillis > partitions.length - 2) {
+            // Would share a partition with live entries that get cleared before this one expires
+            bypassUntil.accumulateAndGet(expiresAt, Math::max);
+            return;
+        }
+
+        Partition partition = partitions[(int) Math.floorMod(slice, (long) partitions.length)];
+        partition.advanceTo(slice);
+        partition.set(hash(high, low), hashFunctions);
+    }
+
+    // No clock read here: partitions of past slices only hold expired entries and at worst add
+    // false positives until expire() or a new slice recycles them
+    boolean mightContain(long high, long low) {
+        long bypass = bypassUntil.get();
+        if (bypass != 0) {
+            if (System.currentTimeMillis() < bypass) {
+                return true;
+            }
+            bypassUntil.compareAndSet(bypass, 0);
+        }
+        long hash = hash(high, low);
+        for (Partition partition : partitions) {
+            if (partition.slice != Long.MIN_VALUE && partition.contains(hash, hashFunctions)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Clears partitions whose slice ended at least a full slice ago.
+     */
+    void expire() {
+        long currentSlice = System.currentTimeMillis() / sliceMillis;
+        for (Partition partition : partitions) {
+            partition.clearIfBefore(currentSlice - 1);
+        }
+    }
+
+    /**
+     * Called when the exact lookup did not find a token the filter let through.
+     */
+    void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    long falsePositives() {
+        return falsePositives.sum();
+    }
+
+    /**
+     * False positive rate expected from the current fill of the live partitions, computed on
+     * demand so lookups do not have to count negatives.
+     */
+    double estimatedFalsePositiveRate() {
+        double allClear = 1;
+        for (Partition partition : partitions) {
+            if (partition.slice != Long.MIN_VALUE) {
+                allClear *= 1 - partition.falsePositiveRate(hashFunctions);
+            }
+        }
+        return 1 - allClear;
+    }
+
+    long memoryBytes() {
+        return (long) partitions.length * partitions[0].words.length() * Long.BYTES;
+    }
+
+    // Token ids are random or digest bits; the MurmurHash3 finaliser decorrelates the filter's
+    // bits from the table index computed from the same id
+    private static long hash(long high, long low) {
+        long h = high ^ Long.rotateLeft(low, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Partition {
+        private final AtomicLongArray words;
+        private final int blocks;
+        private volatile long slice = Long.MIN_VALUE;
+
+        private Partition(int blocks) {
+            this.blocks = blocks;
+            this.words = new AtomicLongArray(blocks * WORDS_PER_BLOCK);
+        }
+
+        private void advanceTo(long newSlice) {
+            if (slice >= newSlice) {
+                return;
+            }
+            synchronized (this) {
+                if (slice < newSlice) {
+                    clear();
+                    // Publishes the cleared words before new bits are set
+                    slice = newSlice;
+                }
+            }
+        }
+
+        private synchronized void clearIfBefore(long oldestKept) {
+            if (slice != Long.MIN_VALUE && slice < oldestKept) {
+                slice = Long.MIN_VALUE;
+                clear();
+            }
+        }
+
+        private double falsePositiveRate(int hashFunctions) {
+            double sum = 0;
+            for (int block = 0; block < blocks; block++) {
+                int set = 0;
+                for (int word = 0; word < WORDS_PER_BLOCK; word++) {
+                    set += Long.bitCount(words.get(block * WORDS_PER_BLOCK + word));
+                }
+                sum += Math.pow((double) set / BLOCK_BITS, hashFunctions);
+            }
+            return sum / blocks;
+        }
+
+        private void clear() {
+            for (int i = 0; i < words.length(); i++) {
+                words.setPlain(i, 0);
+            }
+        }
+
+        private void set(long hash, int hashFunctions) {
+            int base = block(hash) * WORDS_PER_BLOCK;
+            long probe = hash;
+            for (int i = 0; i < hashFunctions; i++) {
+                probe = nextProbe(probe);
+                int bit = (int) (probe >>> 55);
+                long mask = 1L << bit;
+                int index = base + (bit >>> 6);
+                if ((words.get(index) & mask) == 0) {
+                    words.getAndAccumulate(index, mask, (current, m) -> current | m);
+                }
+            }
+        }
+
+        private boolean contains(long hash, int hashFunctions) {
+            int base = block(hash) * WORDS_PER_BLOCK;
+            long probe = hash;
+            for (int i = 0; i < hashFunctions; i++) {
+                probe = nextProbe(probe);
+                int bit = (int) (probe >>> 55);
+                if ((words.get(base + (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Each probe takes the top 9 bits of the next LCG step; double hashing inside a block this
+        // small correlates the probes and roughly doubles the false positive rate
+        private static long nextProbe(long probe) {
+            return probe * 0x5851f42d4c957f2dL + 0x14057b7ef767814fL;
+        }
+
+        private int block(long hash) {
+            return (int) Math.floorMod(hash >>> 32, (long) blocks);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.projects.marketmosaic.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Local copy of the revocation table that survives a restart, so a node serves revocations
+ * before, or without, reaching the revocation store. Every change is appended to a log of fixed
+ * 24 byte {@code high, low, expiresAt} records; the live entries are periodically compacted into
+ * a snapshot that is memory-mapped on startup. Disabled unless {@code auth.revocation.journal.dir}
+ * is set.
+ * <p>
+ * Appends are not forced to disk: the journal survives a process restart, and the revocation
+ * store covers what a power loss may drop on the next resync.
+ */
+@Slf4j
+@Component
+public class RevocationJournal {
+    private static final int MAGIC = 0x52564b31;
+    // magic, reserved int, entry count
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 24;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private FileChannel logChannel;
+
+    public RevocationJournal(@Value("${auth.revocation.journal.dir:}") String directory) {
+        if (directory.isBlank()) {
+            this.snapshotFile = null;
+            this.logFile = null;
+            return;
+        }
+        Path dir = Path.of(directory);
+        this.snapshotFile = dir.resolve("revocations.snapshot");
+        this.logFile = dir.resolve("revocations.log");
+    }
+
+    boolean isEnabled() {
+        return logFile != null;
+    }
+
+    /**
+     * Replays the snapshot and then the log, skipping entries that have expired, and opens the
+     * log for appending. Returns the number of entries replayed.
+     */
+    synchronized int load(long now, RevocationTable.EntryConsumer consumer) throws IOException {
+        Files.createDirectories(logFile.toAbsolutePath().getParent());
+        int loaded = 0;
+        if (Files.exists(snapshotFile)) {
+            loaded += readSnapshot(now, consumer);
+        }
+        if (Files.exists(logFile)) {
+            loaded += readLog(now, consumer);
+        }
+        logChannel = FileChannel.open(logFile, CREATE, WRITE, APPEND);
+        return loaded;
+    }
+
+    synchronized void append(long high, long low, long expiresAt) {
+        if (logChannel == null) {
+            return;
+        }
+        record.clear();
+        record.putLong(high).putLong(low).putLong(expiresAt).flip();
+        try {
+            while (record.hasRemaining()) {
+                logChannel.write(record);
+            }
+        } catch (IOException e) {
+            // A torn record would misalign everything after it; stop until the next compaction
+            log.warn("Could not append to revocation journal, pausing it until the next compaction", e);
+            closeLog();
+        }
+    }
+
+    /**
+     * Writes the live entries to a new snapshot, swaps it in atomically and empties the log.
+     * Appends wait meanwhile, so a change is either in the snapshot or in the new log.
+     */
+    synchronized void compact(long now, Consumer<RevocationTable.EntryConsumer> entries) throws IOException {
+        Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        long count;
+        try (FileChannel channel = FileChannel.open(tempFile, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+            buffer.putInt(MAGIC).putInt(0).putLong(0);
+            long[] written = {0};
+            try {
+                entries.accept((high, low, expiresAt) -> {
+                    if (expiresAt <= now) {
+                        return;
+                    }
+                    if (buffer.remaining() < RECORD_BYTES) {
+                        flush(channel, buffer);
+                    }
+                    buffer.putLong(high).putLong(low).putLong(expiresAt);
+                    written[0]++;
+                });
+                flush(channel, buffer);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            count = written[0];
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, count), Integer.BYTES * 2);
+            channel.force(true);
+        }
+        Files.move(tempFile, snapshotFile, REPLACE_EXISTING, ATOMIC_MOVE);
+
+        if (logChannel == null) {
+            logChannel = FileChannel.open(logFile, CREATE, WRITE, APPEND);
+        }
+        logChannel.truncate(0);
+        log.debug("Compacted {} revocations into {}", count, snapshotFile);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        closeLog();
+    }
+
+    private int readSnapshot(long now, RevocationTable.EntryConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile, READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                log.warn("Ignoring unreadable revocation snapshot {}", snapshotFile);
+                return 0;
+            }
+            buffer.getInt();
+            long count = buffer.getLong();
+            if (count < 0 || count > buffer.remaining() / RECORD_BYTES) {
+                log.warn("Ignoring truncated revocation snapshot {}", snapshotFile);
+                return 0;
+            }
+            return replay(buffer, count, now, consumer);
+        }
+    }
+
+    // A record torn by a crash is shorter than RECORD_BYTES and dropped
+    private int readLog(long now, RevocationTable.EntryConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(logFile, READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return replay(buffer, buffer.remaining() / RECORD_BYTES, now, consumer);
+        }
+    }
+
+    private static int replay(ByteBuffer buffer, long count, long now, RevocationTable.EntryConsumer consumer) {
+        int replayed = 0;
+        for (long i = 0; i < count; i++) {
+            long high = buffer.getLong();
+            long low = buffer.getLong();
+            long expiresAt = buffer.getLong();
+            if (expiresAt > now) {
+                consumer.accept(high, low, expiresAt);
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    private void closeLog() {
+        if (logChannel == null) {
+            return;
+        }
+        try {
+            logChannel.close();
+        } catch (IOException e) {
+            log.debug("Could not close revocation journal", e);
+        }
+        logChannel = null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.projects.marketmosaic.service.impl;
+
+/**
+ * Table from a 128 bit token id to its expiry in epoch millis, with no object per entry.
+ * Lookups and {@link #forEach} do not lock; writers are serialised by the table.
+ */
+interface RevocationTable {
+    int MIN_CAPACITY = 1024;
+
+    /**
+     * On-heap by default; off-heap keeps mass revocations out of the Java heap and away from
+     * the collector.
+     */
+    static RevocationTable create(boolean offHeap) {
+        return offHeap ? new OffHeapRevocationTable() : new HeapRevocationTable();
+    }
+
+    /**
+     * Expiry stored for the id, or 0 if there is none.
+     */
+    long expiresAt(long high, long low);
+
+    /**
+     * Stores the id, keeping the later expiry if it is already present. Returns whether the
+     * table changed.
+     */
+    boolean put(long high, long low, long expiresAt);
+
+    /**
+     * Removes entries whose expiry tick has passed. Returns the number of entries removed.
+     */
+    int expire(long now);
+
+    /**
+     * Visits the live entries without locking out writers. An entry added concurrently may or
+     * may not be visited; one added before the call always is.
+     */
+    void forEach(EntryConsumer consumer);
+
+    int size();
+
+    long memoryBytes();
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(long high, long low, long expiresAt);
+    }
+
+    // Smallest power of two that leaves the table at most half full
+    static int capacityFor(int entries) {
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, entries * 2 - 1)) << 1);
+    }
+
+    // Ids are random or SHA-256 bits already; mixing both halves unevenly keeps ids that only
+    // differ in a pattern shared by the halves apart
+    static int index(long high, long low) {
+        long h = (high * 0x9e3779b97f4a7c15L) ^ low;
+        h *= 0xbf58476d1ce4e5b9L;
+        return (int) (h >>> 32);
+    }
+}
@@ -0,0 +1,147 @@
+package com.projects.marketmosaic.service.impl;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Hierarchical timing wheel over int handles. Level 0 has one bucket per tick; each level above
+ * covers 64 times the span of the one below, so four levels of 64 one second buckets reach about
+ * 194 days. Scheduling and firing are O(1) per handle; a handle moves down at most once per level.
+ * <p>
+ * Handles carry no deadline of their own: when a higher level bucket comes due its handles are
+ * placed again using the deadline looked up from their owner, so a deadline that moved is
+ * honoured and a handle whose owner is gone is dropped. Not thread-safe.
+ */
+final class TimingWheel {
+    private static final int BITS = 6;
+    private static final int WHEEL_SIZE = 1 << BITS;
+    private static final int MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    // Current deadline of a handle in epoch millis, or a value <= 0 once the handle is gone
+    private final IntToLongFunction deadlineOf;
+    private final Bucket[][] wheels = new Bucket[LEVELS][WHEEL_SIZE];
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMillis, long now, IntToLongFunction deadlineOf) {
+        this.tickMillis = tickMillis;
+        this.deadlineOf = deadlineOf;
+        this.currentTick = now / tickMillis;
+        for (Bucket[] wheel : wheels) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheel[i] = new Bucket();
+            }
+        }
+    }
+
+    void schedule(int handle, long deadline) {
+        // The current tick has already fired
+        place(handle, Math.max(currentTick + 1, tickOf(deadline)));
+    }
+
+    /**
+     * Fires every handle whose deadline is at or before {@code now}.
+     */
+    void advanceTo(long now, IntConsumer onDue) {
+        long targetTick = now / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            Bucket due = wheels[0][(int) (currentTick & MASK)];
+            size -= due.size;
+            for (int i = 0; i < due.size; i++) {
+                onDue.accept(due.handles[i]);
+            }
+            due.clear();
+        }
+    }
+
+    void clear() {
+        for (Bucket[] wheel : wheels) {
+            for (Bucket bucket : wheel) {
+                bucket.clear();
+            }
+        }
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long memoryBytes() {
+        long bytes = 0;
+        for (Bucket[] wheel : wheels) {
+            for (Bucket bucket : wheel) {
+                bytes += (long) bucket.handles.length * Integer.BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    // Highest level first, so handles coming down from it can land in a lower bucket that is
+    // itself due in this tick
+    private void cascade() {
+        int level = 0;
+        while (level + 1 < LEVELS && (currentTick & ((1L << (BITS * (level + 1))) - 1)) == 0) {
+            level++;
+        }
+        for (; level > 0; level--) {
+            Bucket bucket = wheels[level][(int) ((currentTick >>> (BITS * level)) & MASK)];
+            int[] handles = bucket.handles;
+            int count = bucket.size;
+            // A handle whose deadline moved out may land in this same bucket again
+            bucket.clear();
+            size -= count;
+            for (int i = 0; i < count; i++) {
+                long deadline = deadlineOf.applyAsLong(handles[i]);
+                if (deadline > 0) {
+                    // Level 0 fires after the cascade, so the current tick is still ahead
+                    place(handles[i], Math.max(currentTick, tickOf(deadline)));
+                }
+            }
+        }
+    }
+
+    // Rounded up so a handle never fires before its deadline
+    private long tickOf(long deadline) {
+        return (deadline + tickMillis - 1) / tickMillis;
+    }
+
+    private void place(int handle, long tick) {
+        long delta = tick - currentTick;
+        int level = 0;
+        while (level + 1 < LEVELS && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        if (delta >= 1L << (BITS * LEVELS)) {
+            // Past the top level: park in its last bucket and place again when that comes due
+            tick = currentTick + (1L << (BITS * LEVELS)) - (1L << (BITS * (LEVELS - 1)));
+        }
+        wheels[level][(int) ((tick >>> (BITS * level)) & MASK)].add(handle);
+        size++;
+    }
+
+    private static final class Bucket {
+        private static final int[] EMPTY = new int[0];
+
+        private int[] handles = EMPTY;
+        private int size;
+
+        private void add(int handle) {
+            if (size == handles.length) {
+                handles = Arrays.copyOf(handles, Math.max(8, size * 2));
+            }
+            handles[size++] = handle;
+        }
+
+        // Drained buckets give their array back, so memory follows the number of scheduled handles
+        private void clear() {
+            handles = EMPTY;
+            size = 0;
+        }
+    }
+}
@@ -1,74 +1,275 @@
 package com.projects.marketmosaic.service.impl;
 
+import com.projects.marketmosaic.entity.UserEntity;
+import com.projects.marketmosaic.service.RevocationStore;
 import com.projects.marketmosaic.service.TokenBlackListService;
+import com.projects.marketmosaic.utils.jwt.TokenId;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
-import java.util.HashSet;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
 
+/**
+ * Revocations are written to the {@link RevocationStore} and mirrored into a local near-cache
+ * that holds every live revocation of the cluster, so {@link #isTokenBlacklisted} never leaves
+ * the JVM. Logout-all is a per-user watermark compared with the token's {@code iat} rather
+ * than one revocation per session. Peers push their revocations over pub/sub; a periodic resync covers messages lost
+ * while a node was disconnected.
+ */
 @Service
 @Slf4j
 public class TokenBlackListServiceImpl implements TokenBlackListService {
-    // Token expiration time in milliseconds (24 hours)
-    private static final long TOKEN_EXPIRATION_MS = 24 * 60 * 60 * 1000L;
-    // Store blacklisted tokens with expiration time
-    private final ConcurrentMap<String, Instant> blacklistedTokens = new ConcurrentHashMap<>();
-    // Store user's active tokens: username -> Set of tokens
-    private final ConcurrentMap<String, Set<String>> userTokens = new ConcurrentHashMap<>();
+    // Peers stamp watermarks with their own clock
+    private static final long WATERMARK_CLOCK_SKEW_SECONDS = 60;
+
+    // Retention for tokens that carry no expiry of their own
+    private final Duration accessTokenTtl;
+    // Concurrent sessions per user before the oldest is evicted, unlimited if not positive
+    private final int maxSessionsPerUser;
+    // Near-cache of blacklisted tokens: token id -> expiration time in epoch millis
+    private final RevocationTable revokedTokens;
+    // Logout-all watermarks: user id -> epoch second, tokens issued in an earlier second are revoked
+    private final ConcurrentMap<Long, Long> watermarks = new ConcurrentHashMap<>();
+    // Optional filter answering lookups for tokens that were never revoked without touching the table
+    private final RevocationBloomFilter bloomFilter;
+
+    private final RevocationStore revocationStore;
+
+    private final RevocationJournal journal;
+
+    private final RevocationMetrics metrics;
+
+    public TokenBlackListServiceImpl(RevocationStore revocationStore, RevocationJournal journal, RevocationMetrics metrics,
+                                     @Value("${jwt.access-token.ttl:PT15M}") Duration accessTokenTtl,
+                                     @Value("${auth.sessions.max-per-user:10}") int maxSessionsPerUser,
+                                     @Value("${auth.revocation.table.off-heap:false}") boolean offHeap,
+                                     @Value("${auth.revocation.bloom.enabled:false}") boolean bloomEnabled,
+                                     @Value("${auth.revocation.bloom.partitions:4}") int bloomPartitions,
+                                     @Value("${auth.revocation.bloom.expected-insertions:100000}") int expectedInsertions,
+                                     @Value("${auth.revocation.bloom.fpp:0.001}") double falsePositiveRate) {
+        this.revocationStore = revocationStore;
+        this.journal = journal;
+        this.accessTokenTtl = accessTokenTtl;
+        this.maxSessionsPerUser = maxSessionsPerUser;
+        this.revokedTokens = RevocationTable.create(offHeap);
+        // Off by default: a miss in the table is a single probe already. The filter is worth it
+        // when probing the table behind it costs more than that.
+        this.bloomFilter = bloomEnabled
+                ? new RevocationBloomFilter(accessTokenTtl.toMillis(), bloomPartitions, expectedInsertions, falsePositiveRate)
+                : null;
+        this.metrics = metrics;
+        metrics.monitor(revokedTokens, watermarks, bloomFilter);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (journal.isEnabled()) {
+            restoreFromJournal();
+        }
+        // Subscribe before loading so nothing published in between is missed
+        revocationStore.subscribe(this::onRevoked);
+        revocationStore.subscribeWatermarks(this::raiseWatermark);
+        try {
+            resync();
+        } catch (RuntimeException e) {
+            // The scheduled resync retries, the journal covers revocations until then
+            log.warn("Could not load revocations from the revocation store", e);
+        }
+    }
+
+    private void restoreFromJournal() {
+        long started = System.nanoTime();
+        try {
+            int restored = journal.load(System.currentTimeMillis(), this::cache);
+            log.info("Restored {} revocations from the local journal in {} ms", restored,
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException e) {
+            log.warn("Could not restore revocations from the local journal", e);
+        }
+    }
 
     @Override
-    public void blacklistToken(String token) {
-        blacklistedTokens.put(token, Instant.now().plusMillis(TOKEN_EXPIRATION_MS));
-        // Remove token from user's active tokens
-        userTokens.values().forEach(tokens -> tokens.remove(token));
+    public void blacklistToken(VerifiedToken token) {
+        long expiresAt = expiresAt(token);
+        remember(token.id(), expiresAt);
+        revocationStore.revoke(Map.of(token.id(), expiresAt));
+        // The subject leads straight to the user's sessions, no other user is touched
+        revocationStore.removeSession(token.subject(), token.id());
+        metrics.recordLogout();
     }
 
     @Override
-    public boolean isTokenBlacklisted(String token) {
-        Instant expirationTime = blacklistedTokens.get(token);
-        if (expirationTime == null) {
+    public boolean isTokenBlacklisted(VerifiedToken token) {
+        if (!metrics.sampleLookup()) {
+            return isRevoked(token);
+        }
+        long started = System.nanoTime();
+        boolean revoked = isRevoked(token);
+        metrics.recordLookup(revoked, System.nanoTime() - started);
+        return revoked;
+    }
+
+    private boolean isRevoked(VerifiedToken token) {
+        return isIssuedBeforeWatermark(token) || isTokenBlacklisted(token.id());
+    }
+
+    // iat has whole seconds, and a login right after logout-all must survive it, so a token of the
+    // watermark's own second is kept; the sessions of that second stored before are revoked one by one
+    private boolean isIssuedBeforeWatermark(VerifiedToken token) {
+        if (watermarks.isEmpty() || token.userId() == null || token.issuedAt() == null) {
             return false;
         }
+        Long watermark = watermarks.get(token.userId());
+        return watermark != null && token.issuedAt().getEpochSecond() < watermark;
+    }
 
-        if (Instant.now().isAfter(expirationTime)) {
-            blacklistedTokens.remove(token);
+    private boolean isTokenBlacklisted(TokenId tokenId) {
+        if (bloomFilter == null) {
+            return isRevoked(tokenId);
+        }
+        if (!bloomFilter.mightContain(tokenId.high(), tokenId.low())) {
             return false;
         }
 
-        return true;
+        boolean revoked = isRevoked(tokenId);
+        if (!revoked) {
+            bloomFilter.recordFalsePositive();
+        }
+        return revoked;
+    }
+
+    private boolean isRevoked(TokenId tokenId) {
+        long expirationTime = revokedTokens.expiresAt(tokenId.high(), tokenId.low());
+        return expirationTime != 0 && System.currentTimeMillis() <= expirationTime;
     }
 
     @Override
-    public void invalidateAllUserTokens(String username) {
-        Set<String> tokens = userTokens.get(username);
-        if (tokens != null) {
-            Instant expirationTime = Instant.now().plusMillis(TOKEN_EXPIRATION_MS);
-            tokens.forEach(token -> blacklistedTokens.put(token, expirationTime));
-            userTokens.remove(username);
-        }
+    public void invalidateAllUserTokens(UserEntity user) {
+        long watermark = System.currentTimeMillis() / 1000;
+        raiseWatermark(user.getId(), watermark);
+        // A session issued in the watermark's second expires a TTL after its start
+        long sessionsExpiringFrom = watermark * 1000 + accessTokenTtl.toMillis();
+        revocationStore.revokeIssuedBefore(user.getId(), user.getUsername(), watermark, sessionsExpiringFrom)
+                .forEach(this::remember);
+        metrics.recordLogoutAll();
     }
 
     @Override
-    public void storeUserToken(String username, String token) {
-        userTokens.computeIfAbsent(username, k -> ConcurrentHashMap.newKeySet()).add(token);
+    public Set<String> storeUserToken(String username, VerifiedToken token, String familyId) {
+        RevocationStore.StoredSession stored = revocationStore.storeSession(username, token.id(), familyId,
+                expiresAt(token), maxSessionsPerUser);
+        // Already revoked in the store and broadcast; cached here so this node does not wait for the echo
+        stored.evicted().forEach(this::remember);
+        metrics.recordEvictions(stored.evicted().size());
+        metrics.recordSessions(stored.sessions());
+        return stored.evictedFamilies();
     }
 
     @Override
-    public Set<String> getUserTokens(String username) {
-        return new HashSet<>(userTokens.getOrDefault(username, new HashSet<>()));
+    public Set<TokenId> getUserTokens(String username) {
+        return revocationStore.getSessions(username).stream()
+                .filter(tokenId -> !isTokenBlacklisted(tokenId))
+                .collect(Collectors.toSet());
     }
 
-    @Scheduled(fixedRate = 60 * 60 * 1000) // Run every hour
+    @Override
+    public List<TokenId> getUserTokens(String username, int offset, int limit) {
+        return revocationStore.getSessions(username, offset, limit).stream()
+                .filter(tokenId -> !isTokenBlacklisted(tokenId))
+                .toList();
+    }
+
+    // Only the entries due in the elapsed ticks are touched
+    @Scheduled(fixedRate = 1000)
+    public void expireRevocations() {
+        long started = System.nanoTime();
+        revokedTokens.expire(System.currentTimeMillis());
+        metrics.recordExpire(System.nanoTime() - started);
+    }
+
+    @Scheduled(fixedRate = 60 * 1000) // Run every minute
     public void cleanupExpiredTokens() {
-        Instant now = Instant.now();
-        blacklistedTokens.entrySet().removeIf(entry -> now.isAfter(entry.getValue()));
+        long started = System.nanoTime();
+        long now = System.currentTimeMillis();
+        if (bloomFilter != null) {
+            bloomFilter.expire();
+        }
+        revocationStore.purgeExpired();
+
+        // Every token a watermark could revoke has expired once it is older than the TTL
+        long watermarkCutoff = now / 1000 - accessTokenTtl.toSeconds() - WATERMARK_CLOCK_SKEW_SECONDS;
+        watermarks.values().removeIf(watermark -> watermark < watermarkCutoff);
+        revocationStore.purgeWatermarksBefore(watermarkCutoff);
+        metrics.recordPurge(System.nanoTime() - started);
+    }
+
+    @Scheduled(fixedRateString = "${auth.revocation.journal.compact-ms:300000}",
+            initialDelayString = "${auth.revocation.journal.compact-ms:300000}")
+    public void compactJournal() {
+        if (!journal.isEnabled()) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            journal.compact(System.currentTimeMillis(), revokedTokens::forEach);
+        } catch (IOException e) {
+            log.warn("Could not compact the revocation journal", e);
+        }
+        metrics.recordCompaction(System.nanoTime() - started);
+    }
+
+    @Scheduled(fixedRateString = "${auth.revocation.resync-ms:300000}", initialDelayString = "${auth.revocation.resync-ms:300000}")
+    public void resync() {
+        long started = System.nanoTime();
+        Map<TokenId, Long> revoked = revocationStore.loadRevoked();
+        revoked.forEach(this::remember);
+        Map<Long, Long> loadedWatermarks = revocationStore.loadWatermarks();
+        loadedWatermarks.forEach(this::raiseWatermark);
+        log.debug("Loaded {} revoked tokens and {} watermarks from the revocation store",
+                revoked.size(), loadedWatermarks.size());
+        metrics.recordResync(System.nanoTime() - started);
+    }
+
+    private void raiseWatermark(Long userId, Long watermark) {
+        watermarks.merge(userId, watermark, Math::max);
+    }
+
+    private void onRevoked(TokenId tokenId, Long expiresAt) {
+        if (revokedTokens.expiresAt(tokenId.high(), tokenId.low()) < expiresAt) {
+            remember(tokenId, expiresAt);
+        }
+    }
+
+    private void remember(TokenId tokenId, long expiresAt) {
+        // Resyncs mostly repeat known entries, only changes go to the journal
+        if (cache(tokenId.high(), tokenId.low(), expiresAt)) {
+            journal.append(tokenId.high(), tokenId.low(), expiresAt);
+        }
+    }
+
+    // The filter is updated first so that a lookup never finds the table entry without the filter bits
+    private boolean cache(long high, long low, long expiresAt) {
+        if (bloomFilter != null) {
+            bloomFilter.put(high, low, expiresAt);
+        }
+        return revokedTokens.put(high, low, expiresAt);
+    }
 
-        // Clean up empty user token sets
-        userTokens.entrySet().removeIf(entry -> entry.getValue().isEmpty());
+    // A revocation only has to outlive the token itself
+    private long expiresAt(VerifiedToken token) {
+        return token.expiry() != null
+                ? token.expiry().toEpochMilli()
+                : System.currentTimeMillis() + accessTokenTtl.toMillis();
     }
 }
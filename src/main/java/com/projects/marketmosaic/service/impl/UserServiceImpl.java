@@ -11,6 +11,7 @@ import com.projects.marketmosaic.entity.UserEntity;
 import com.projects.marketmosaic.enums.AuthStatus;
 import com.projects.marketmosaic.exception.exceptions.AuthException;
 import com.projects.marketmosaic.repositories.UserRepository;
+import com.projects.marketmosaic.service.RefreshTokenService;
 import com.projects.marketmosaic.service.TokenBlackListService;
 import com.projects.marketmosaic.service.UserService;
 import com.projects.marketmosaic.utils.FileUtils;
@@ -30,6 +31,7 @@ import java.util.List;
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final TokenBlackListService tokenBlackListService;
+    private final RefreshTokenService refreshTokenService;
     private final FileUtils fileUtils;
     private final SecurityUtils securityUtils;
     private final PasswordEncoder passwordEncoder;
@@ -41,6 +43,10 @@ public class UserServiceImpl implements UserService {
         // Check if user exists
         UserEntity user = securityUtils.getUserByUsername(username);
 
+        return buildUserResponse(user);
+    }
+
+    private BaseRespDTO buildUserResponse(UserEntity user) {
         // Convert to DTO
         UserDTO userDTO = new UserDTO();
         userDTO.setId(user.getId());
@@ -120,7 +126,8 @@ public class UserServiceImpl implements UserService {
         // Save the updated user
         userRepository.save(user);
 
-        return getUser(username, request);
+        // Caller was already validated above, no need to check the token again
+        return buildUserResponse(user);
     }
 
     @Override
@@ -131,11 +138,15 @@ public class UserServiceImpl implements UserService {
         // Check if user exists
         UserEntity user = securityUtils.getUserByUsername(username);
 
-        // Invalidate all user tokens
-        tokenBlackListService.invalidateAllUserTokens(username);
+        // Refresh tokens reference the user, they have to go first
+        refreshTokenService.revokeAll(user);
 
-        // Delete the user
+        // Delete the user, flushed so a failing delete does not leave the account locked out
         userRepository.delete(user);
+        userRepository.flush();
+
+        // Invalidate all user tokens
+        tokenBlackListService.invalidateAllUserTokens(user);
 
         BaseRespDTO respDTO = new BaseRespDTO();
         respDTO.setStatus(true);
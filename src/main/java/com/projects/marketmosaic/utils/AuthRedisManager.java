@@ -0,0 +1,69 @@
+package com.projects.marketmosaic.utils;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The Redis operations the auth service needs beyond the common {@code RedisManager}: Lua scripts,
+ * multi-key deletes, sorted sets and pub/sub. Every component that needs them shares this bean,
+ * and with it one template and one subscriber connection.
+ */
+@Component
+public class AuthRedisManager {
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    public AuthRedisManager(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = new RedisMessageListenerContainer();
+        this.listenerContainer.setConnectionFactory(redisTemplate.getRequiredConnectionFactory());
+        this.listenerContainer.afterPropertiesSet();
+    }
+
+    @PreDestroy
+    public void close() {
+        listenerContainer.stop();
+    }
+
+    public <T> T execute(RedisScript<T> script, List<String> keys, String... args) {
+        return redisTemplate.execute(script, keys, (Object[]) args);
+    }
+
+    public void delete(String... keys) {
+        redisTemplate.delete(List.of(keys));
+    }
+
+    public void addToSortedSet(String key, Set<ZSetOperations.TypedTuple<String>> entries) {
+        redisTemplate.opsForZSet().add(key, entries);
+    }
+
+    public Set<ZSetOperations.TypedTuple<String>> rangeByScore(String key, double min, double max) {
+        return redisTemplate.opsForZSet().rangeByScoreWithScores(key, min, max);
+    }
+
+    public Long removeRangeByScore(String key, double min, double max) {
+        return redisTemplate.opsForZSet().removeRangeByScore(key, min, max);
+    }
+
+    public void publish(String channel, String message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
+    // The subscriber connection is opened by the first subscription
+    public void subscribe(String channel, MessageListener listener) {
+        listenerContainer.addMessageListener(listener, new ChannelTopic(channel));
+        if (!listenerContainer.isRunning()) {
+            listenerContainer.start();
+        }
+    }
+}
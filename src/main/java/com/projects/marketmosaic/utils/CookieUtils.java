@@ -6,21 +6,30 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 public class CookieUtils {
 
     @Value("${jwt.cookie.name:JWT_SESSION}")
     private String jwtCookieName;
 
-    @Value("${jwt.cookie.max-age:86400}") // 24 hours in seconds
-    private int cookieMaxAge;
+    // The cookie goes with the token, an expired token is not sent along with every request
+    @Value("${jwt.access-token.ttl:PT15M}")
+    private Duration accessTokenTtl = Duration.ofMinutes(15);
+
+    @Value("${jwt.refresh-cookie.name:REFRESH_SESSION}")
+    private String refreshCookieName;
+
+    @Value("${jwt.refresh-token.ttl:P14D}")
+    private Duration refreshTokenTtl = Duration.ofDays(14);
 
     public void createJwtCookie(HttpServletResponse response, String token) {
         Cookie cookie = new Cookie(jwtCookieName, token);
         cookie.setHttpOnly(true);
         cookie.setSecure(true); // Only transmitted over HTTPS
         cookie.setPath("/");
-        cookie.setMaxAge(cookieMaxAge);
+        cookie.setMaxAge((int) accessTokenTtl.toSeconds());
         response.addCookie(cookie);
     }
 
@@ -34,9 +43,36 @@ public class CookieUtils {
     }
 
     public String extractJwtFromCookies(HttpServletRequest request) {
+        return extractCookie(request, jwtCookieName);
+    }
+
+    // Only sent to the auth endpoints, never along with regular API calls
+    public void createRefreshCookie(HttpServletResponse response, String refreshToken) {
+        Cookie cookie = new Cookie(refreshCookieName, refreshToken);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(true);
+        cookie.setPath("/auth");
+        cookie.setMaxAge((int) refreshTokenTtl.toSeconds());
+        response.addCookie(cookie);
+    }
+
+    public void clearRefreshCookie(HttpServletResponse response) {
+        Cookie cookie = new Cookie(refreshCookieName, null);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(true);
+        cookie.setPath("/auth");
+        cookie.setMaxAge(0);
+        response.addCookie(cookie);
+    }
+
+    public String extractRefreshTokenFromCookies(HttpServletRequest request) {
+        return extractCookie(request, refreshCookieName);
+    }
+
+    private String extractCookie(HttpServletRequest request, String name) {
         if (request.getCookies() != null) {
             for (Cookie cookie : request.getCookies()) {
-                if (jwtCookieName.equals(cookie.getName())) {
+                if (name.equals(cookie.getName())) {
                     return cookie.getValue();
                 }
             }
@@ -4,9 +4,24 @@ import com.projects.marketmosaic.common.config.ZooKeeperConfig;
 import com.projects.marketmosaic.constants.ErrorMessages;
 import com.projects.marketmosaic.entity.UserEntity;
 import com.projects.marketmosaic.exception.exceptions.AuthException;
+import com.projects.marketmosaic.utils.jwt.JwtSigningKeys;
+import com.projects.marketmosaic.utils.jwt.TokenClaims;
+import com.projects.marketmosaic.utils.jwt.TokenDigest;
+import com.projects.marketmosaic.utils.jwt.TokenFormat;
+import com.projects.marketmosaic.utils.jwt.TokenId;
+import com.projects.marketmosaic.utils.jwt.TokenMinter;
+import com.projects.marketmosaic.utils.jwt.TokenProfile;
+import com.projects.marketmosaic.utils.jwt.TokenValidationResult;
+import com.projects.marketmosaic.utils.jwt.TokenVerifier;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
+import com.projects.marketmosaic.utils.jwt.VerifiedTokenCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,93 +31,189 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
+import java.time.Duration;
 import java.util.*;
-import java.util.function.Function;
 
 @Component
 @Slf4j
 @RequiredArgsConstructor
 
 public class JWTUtils {
-    private final String secret;
-
     private final Long expiration;
 
-    private SecretKey key;
+    private final VerifiedTokenCache tokenCache;
+
+    private final JwtSigningKeys signingKeys;
+
+    private final TokenMinter tokenMinter;
+
+    private JwtParser parser;
+
+    private TokenVerifier verifier;
+
+    @Value("${jwt.profile:STANDARD}")
+    private TokenProfile profile;
+
+    @Value("${jwt.max-length:4096}")
+    private int maxTokenLength = 4096;
+
+    // Session tokens are short-lived and renewed through the refresh token
+    @Value("${jwt.access-token.ttl:PT15M}")
+    private Duration accessTokenTtl = Duration.ofMinutes(15);
 
     @Autowired
-    public JWTUtils(final ZooKeeperConfig zooKeeperConfig) {
-        this.secret = zooKeeperConfig.getStringValueByKey("JWT_SECRET");
+    public JWTUtils(final ZooKeeperConfig zooKeeperConfig, final VerifiedTokenCache tokenCache,
+                    final JwtSigningKeys signingKeys, final TokenMinter tokenMinter) {
         this.expiration = Long.parseLong(zooKeeperConfig.getStringValueByKey("JWT_EXPIRATION"));
+        this.tokenCache = tokenCache;
+        this.signingKeys = signingKeys;
+        this.tokenMinter = tokenMinter;
     }
 
     @PostConstruct
     public void init() {
-        this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser()
+                .keyLocator(signingKeys.keyLocator())
+                .build();
+        this.verifier = new TokenVerifier(signingKeys);
     }
 
     public String generateToken(UserDetails userDetails, UserEntity user) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("userId", user.getId());
-        claims.put("email", user.getEmail());
-        claims.put("name", user.getName());
-
-        // Convert comma-separated roles to a list of authorities
-        claims.put("role", user.getRole());
+        // Fixed claim order keeps minted tokens identical to what the jjwt builder produces
+        Map<String, Object> claims = new LinkedHashMap<>();
+        if (profile == TokenProfile.COMPACT) {
+            // Short names, no PII, role as a small code
+            claims.put(TokenClaims.COMPACT_USER_ID, user.getId());
+            claims.put(TokenClaims.COMPACT_ROLE, TokenClaims.encodeRole(user.getRole()));
+        } else {
+            claims.put(TokenClaims.USER_ID, user.getId());
+            claims.put(TokenClaims.EMAIL, user.getEmail());
+            claims.put(TokenClaims.NAME, user.getName());
+
+            // Convert comma-separated roles to a list of authorities
+            claims.put(TokenClaims.ROLE, user.getRole());
+        }
+        // Revocation and session tracking key on this id
+        claims.put(Claims.ID, TokenId.random().toString());
 
         return createToken(claims, userDetails.getUsername());
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
-        return Jwts.builder()
+        long now = System.currentTimeMillis();
+        long expiresAt = now + accessTokenTtl.toMillis();
+        if (tokenMinter.supportsActiveKey()) {
+            return tokenMinter.mint(claims, subject, now, expiresAt);
+        }
+        return sign(Jwts.builder()
                 .claims(claims)
                 .subject(subject)
-                .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(key)
-                .compact();
+                .issuedAt(new Date(now))
+                .expiration(new Date(expiresAt)));
     }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    private String sign(JwtBuilder builder) {
+        JwtSigningKeys.SigningKey signingKey = signingKeys.getSigningKey();
+        if (signingKey.keyId() != null) {
+            builder.header().keyId(signingKey.keyId());
+        }
+        return builder.signWith(signingKey.key()).compact();
+    }
+
+    /**
+     * Validates a token without throwing. Structurally broken tokens are rejected before any
+     * crypto, verified tokens come from {@link VerifiedTokenCache}, and recently rejected ones
+     * are answered from the cache's rejection list. Expiry and signature are then checked by
+     * {@link TokenVerifier}, so only a token that passed both reaches jjwt.
+     */
+    public TokenValidationResult validate(String token) {
+        if (token == null || !TokenFormat.isWellFormed(token, maxTokenLength)) {
+            return TokenValidationResult.MALFORMED;
+        }
+
+        TokenDigest digest = TokenDigest.of(token);
+        VerifiedToken cached = tokenCache.getIfPresent(digest);
+        if (cached != null) {
+            return result(cached);
+        }
+        TokenValidationResult.Status rejection = tokenCache.getRejection(digest);
+        if (rejection != null) {
+            return TokenValidationResult.failure(rejection);
+        }
+
+        TokenValidationResult.Status status;
+        switch (verifier.check(token)) {
+            case VERIFIED -> {
+                return parse(token, digest);
+            }
+            case UNKNOWN_KEY -> {
+                // An unknown kid may be in the next key ring, so it is not remembered
+                log.debug("Rejected JWT token: unknown signing key");
+                return TokenValidationResult.BAD_SIGNATURE;
+            }
+            case EXPIRED -> status = TokenValidationResult.Status.EXPIRED;
+            case BAD_SIGNATURE -> status = TokenValidationResult.Status.BAD_SIGNATURE;
+            default -> status = TokenValidationResult.Status.MALFORMED;
+        }
+        return reject(digest, status);
     }
 
-    public Collection<SimpleGrantedAuthority> extractAuthorities(String token) {
-        Claims claims = extractAllClaims(token);
-        String role = claims.get("role", String.class);
-        return List.of(new SimpleGrantedAuthority(role));
+    // jjwt stays the authority for what is accepted; it only throws here for the odd token the
+    // verifier passed, such as one that expired in between
+    private TokenValidationResult parse(String token, TokenDigest digest) {
+        TokenValidationResult.Status status;
+        try {
+            return result(tokenCache.get(digest,
+                    () -> VerifiedToken.from(parser.parseSignedClaims(token).getPayload(), digest)));
+        } catch (ExpiredJwtException e) {
+            status = TokenValidationResult.Status.EXPIRED;
+        } catch (SecurityException e) {
+            status = TokenValidationResult.Status.BAD_SIGNATURE;
+        } catch (JwtException | IllegalArgumentException e) {
+            status = TokenValidationResult.Status.MALFORMED;
+        }
+        return reject(digest, status);
     }
 
-    public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    private TokenValidationResult reject(TokenDigest digest, TokenValidationResult.Status status) {
+        log.debug("Rejected JWT token: {}", status);
+        tokenCache.reject(digest, status);
+        return TokenValidationResult.failure(status);
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    private static TokenValidationResult result(VerifiedToken token) {
+        return token.isExpired() ? TokenValidationResult.EXPIRED : TokenValidationResult.valid(token);
     }
 
-    private Claims extractAllClaims(String token) {
-        try {
-            return Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-        } catch (Exception e) {
-            log.error("Error parsing JWT token: {}", e.getMessage());
-            throw AuthException.invalidToken(ErrorMessages.JWT_PARSE_ERROR);
+    /**
+     * Same as {@link #validate(String)} for callers that report failures as {@link AuthException}.
+     */
+    public VerifiedToken verify(String token) {
+        TokenValidationResult result = validate(token);
+        if (!result.isValid()) {
+            throw result.toException();
         }
+        return result.token();
+    }
+
+    public String extractUsername(String token) {
+        return verify(token).subject();
+    }
+
+    public Collection<SimpleGrantedAuthority> extractAuthorities(String token) {
+        return List.of(new SimpleGrantedAuthority(verify(token).role()));
+    }
+
+    public boolean validateToken(String token, UserDetails userDetails) {
+        return validateToken(verify(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean validateToken(VerifiedToken token, UserDetails userDetails) {
+        return token.subject().equals(userDetails.getUsername()) && !token.isExpired();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return Date.from(verify(token).expiry());
     }
 
     public String extractTokenFromHeader(String authHeader) {
@@ -118,23 +229,21 @@ public class JWTUtils {
     }
 
     public Long extractUserId(String token) {
-        return extractClaim(token, claims -> claims.get("userId", Long.class));
+        return verify(token).userId();
     }
 
     public String extractEmail(String token) {
-        return extractClaim(token, claims -> claims.get("email", String.class));
+        return verify(token).email();
     }
 
     public String extractName(String token) {
-        return extractClaim(token, claims -> claims.get("name", String.class));
+        return verify(token).name();
     }
 
     public String generatePasswordResetToken(String userId) {
-        return Jwts.builder()
+        return sign(Jwts.builder()
                 .subject(userId)  // Add the user ID as the subject
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(key)  // Sign with a secure key
-                .compact();
+                .expiration(new Date(System.currentTimeMillis() + expiration)));
     }
 }
@@ -7,7 +7,9 @@ import com.projects.marketmosaic.entity.UserEntity;
 import com.projects.marketmosaic.exception.exceptions.AuthException;
 import com.projects.marketmosaic.repositories.PasswordResetTokenRepository;
 import com.projects.marketmosaic.repositories.UserRepository;
+import com.projects.marketmosaic.service.RefreshTokenService;
 import com.projects.marketmosaic.service.TokenBlackListService;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -25,14 +27,10 @@ public class SecurityUtils {
     private final PasswordEncoder passwordEncoder;
     private final TokenBlackListService tokenBlackListService;
     private final LoginAttemptTracker loginAttemptTracker;
+    private final RefreshTokenService refreshTokenService;
 
     public void validateUser(String username, HttpServletRequest request) {
-        String token = cookieUtils.extractJwtFromCookies(request);
-        if (token == null) {
-            throw AuthException.invalidToken(ErrorMessages.NO_TOKEN_FOUND);
-        }
-
-        String currentUsername = jwtUtils.extractUsername(token);
+        String currentUsername = getVerifiedToken(request).subject();
         if (!username.equals(currentUsername) && !isAdmin(currentUsername)) {
             throw AuthException.unauthorized();
         }
@@ -49,11 +47,23 @@ public class SecurityUtils {
     }
 
     public String validateAndExtractUsername(HttpServletRequest request) {
+        return getVerifiedToken(request).subject();
+    }
+
+    public VerifiedToken getVerifiedToken(HttpServletRequest request) {
+        // JWTFilter has normally verified the token already
+        VerifiedToken verifiedToken = VerifiedToken.fromRequest(request);
+        if (verifiedToken != null) {
+            return verifiedToken;
+        }
+
         String token = cookieUtils.extractJwtFromCookies(request);
         if (token == null) {
             throw AuthException.invalidToken(ErrorMessages.NO_TOKEN_FOUND);
         }
-        return jwtUtils.extractUsername(token);
+        verifiedToken = jwtUtils.verify(token);
+        verifiedToken.bindTo(request);
+        return verifiedToken;
     }
 
     @Transactional
@@ -68,7 +78,8 @@ public class SecurityUtils {
         loginAttemptTracker.clearAttempts(user.getUsername());
 
         // Invalidate all existing sessions for security
-        tokenBlackListService.invalidateAllUserTokens(user.getUsername());
+        tokenBlackListService.invalidateAllUserTokens(user);
+        refreshTokenService.revokeAll(user);
     }
 
 }
\ No newline at end of file
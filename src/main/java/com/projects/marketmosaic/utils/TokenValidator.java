@@ -0,0 +1,25 @@
+package com.projects.marketmosaic.utils;
+
+import com.projects.marketmosaic.service.TokenBlackListService;
+import com.projects.marketmosaic.utils.jwt.TokenValidationResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Full token check shared by the servlet filter and the gRPC service: signature, expiry and
+ * revocation, reported as a {@link TokenValidationResult} instead of an exception.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenValidator {
+    private final JWTUtils jwtUtils;
+    private final TokenBlackListService tokenBlackListService;
+
+    public TokenValidationResult validate(String token) {
+        TokenValidationResult result = jwtUtils.validate(token);
+        if (result.isValid() && tokenBlackListService.isTokenBlacklisted(result.token())) {
+            return TokenValidationResult.REVOKED;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,285 @@
+package com.projects.marketmosaic.utils.jwt;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.marketmosaic.common.config.ZooKeeperConfig;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PublicJwk;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.CuratorCache;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Key ring used to sign and verify tokens.
+ * <p>
+ * HS256 uses shared secrets. ES256 and EdDSA sign with a private key, stamp the {@code kid}
+ * header and publish the public keys through the JWKS endpoint so other services can verify
+ * tokens locally.
+ * <p>
+ * The ring is read from the {@code JWT_KEYS} node and reloaded whenever that node changes:
+ * <pre>
+ * {"active": "2025-10", "keys": [
+ *     {"kid": "2025-09", "secret": "..."},
+ *     {"kid": "2025-10", "secret": "..."}]}
+ * </pre>
+ * Asymmetric entries carry {@code publicKey}, plus {@code privateKey} for the active one.
+ * Keys stay verifiable until they are removed from the node, so rotating the active key does
+ * not log anybody out. Without {@code JWT_KEYS} the single {@code JWT_SECRET} /
+ * {@code JWT_PRIVATE_KEY} configuration is used. Tokens without a {@code kid} were signed with
+ * {@code JWT_SECRET} before the ring existed; once {@code JWT_KEYS} is configured they are only
+ * accepted while {@code jwt.keys.accept-legacy} is set, which is meant for the migration.
+ */
+@Slf4j
+@Component
+public class JwtSigningKeys {
+    private static final String HMAC = "HS256";
+
+    public record SigningKey(String keyId, Key key) {
+    }
+
+    private record KeyRing(SigningKey signingKey, Map<String, Key> verificationKeys, List<PublicJwk<?>> publicJwks,
+                           boolean legacy) {
+    }
+
+    @Getter
+    private final String algorithm;
+
+    private final String keyAlgorithm;
+
+    // Verifies tokens issued without a kid, before the key ring was introduced
+    private final SecretKey legacyKey;
+
+    private final VerifiedTokenCache tokenCache;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectProvider<CuratorFramework> curatorProvider;
+
+    @Value("${jwt.keys.zk-path:/config/application/JWT_KEYS}")
+    private String keysPath;
+
+    @Value("${jwt.keys.accept-legacy:false}")
+    private boolean acceptLegacy;
+
+    private volatile KeyRing ring;
+
+    private CuratorCache keysWatch;
+
+    public JwtSigningKeys(ZooKeeperConfig zooKeeperConfig, VerifiedTokenCache tokenCache, ObjectMapper objectMapper,
+                          ObjectProvider<CuratorFramework> curatorProvider,
+                          @Value("${jwt.signing.algorithm:HS256}") String algorithm) {
+        this.algorithm = algorithm;
+        this.keyAlgorithm = switch (algorithm) {
+            case HMAC -> null;
+            case "ES256" -> "EC";
+            case "EdDSA" -> "Ed25519";
+            default -> throw new IllegalStateException("Unsupported JWT signing algorithm: " + algorithm);
+        };
+        this.tokenCache = tokenCache;
+        this.objectMapper = objectMapper;
+        this.curatorProvider = curatorProvider;
+
+        String secret = zooKeeperConfig.getStringValueByKey("JWT_SECRET");
+        this.legacyKey = secret != null ? Keys.hmacShaKeyFor(secret.getBytes()) : null;
+
+        String keys = zooKeeperConfig.getStringValueByKey("JWT_KEYS");
+        this.ring = keys != null
+                ? buildRing(keys.getBytes(StandardCharsets.UTF_8))
+                : buildLegacyRing(zooKeeperConfig);
+        log.info("Signing tokens with {} key {}", algorithm, ring.signingKey().keyId());
+    }
+
+    @PostConstruct
+    public void watchKeys() {
+        CuratorFramework curator = curatorProvider.getIfAvailable();
+        if (curator == null) {
+            log.warn("No ZooKeeper client available, JWT key rotation requires a restart");
+            return;
+        }
+
+        keysWatch = CuratorCache.build(curator, keysPath, CuratorCache.Options.SINGLE_NODE_CACHE);
+        keysWatch.listenable().addListener(CuratorCacheListener.builder()
+                .forCreatesAndChanges((oldNode, node) -> reload(node.getData()))
+                .build());
+        keysWatch.start();
+    }
+
+    @PreDestroy
+    public void stopWatchingKeys() {
+        if (keysWatch != null) {
+            keysWatch.close();
+        }
+    }
+
+    public boolean isHmac() {
+        return keyAlgorithm == null;
+    }
+
+    public SigningKey getSigningKey() {
+        return ring.signingKey();
+    }
+
+    public List<PublicJwk<?>> getPublicJwks() {
+        return ring.publicJwks();
+    }
+
+    /**
+     * Picks the verification key from the token's {@code kid}: a single map lookup.
+     */
+    public LocatorAdapter<Key> keyLocator() {
+        return new LocatorAdapter<>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                Key key = verificationKey(header.getKeyId());
+                if (key == null) {
+                    throw new InvalidKeyException("Unknown signing key: " + header.getKeyId());
+                }
+                return key;
+            }
+        };
+    }
+
+    /**
+     * The key that verifies tokens carrying {@code kid}, or null if there is none.
+     */
+    public Key verificationKey(String kid) {
+        return kid != null ? ring.verificationKeys().get(kid) : legacyKey();
+    }
+
+    private Key legacyKey() {
+        return ring.legacy() || acceptLegacy ? legacyKey : null;
+    }
+
+    private void reload(byte[] data) {
+        if (data == null || data.length == 0) {
+            return;
+        }
+        try {
+            KeyRing previous = ring;
+            ring = buildRing(data);
+
+            // Tokens signed with a retired key must stop being served from the cache, and no
+            // rejection holds once the keys have changed
+            if (!ring.verificationKeys().keySet().containsAll(previous.verificationKeys().keySet())) {
+                tokenCache.invalidateAll();
+            } else {
+                tokenCache.invalidateRejections();
+            }
+            log.info("Reloaded JWT key ring, signing with {}, verifying {}",
+                    ring.signingKey().keyId(), ring.verificationKeys().keySet());
+        } catch (Exception e) {
+            log.error("Ignoring invalid JWT key ring update: {}", e.getMessage());
+        }
+    }
+
+    private KeyRing buildRing(byte[] data) {
+        Map<String, Object> config;
+        try {
+            config = objectMapper.readValue(data, new TypeReference<>() {
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException("JWT_KEYS is not valid JSON", e);
+        }
+
+        String active = (String) config.get("active");
+        @SuppressWarnings("unchecked")
+        List<Map<String, String>> entries = (List<Map<String, String>>) config.get("keys");
+
+        SigningKey signingKey = null;
+        Map<String, Key> verificationKeys = new HashMap<>();
+        List<PublicJwk<?>> publicJwks = new ArrayList<>();
+        for (Map<String, String> entry : entries) {
+            String kid = entry.get("kid");
+            if (isHmac()) {
+                SecretKey secretKey = Keys.hmacShaKeyFor(entry.get("secret").getBytes());
+                verificationKeys.put(kid, secretKey);
+                if (kid.equals(active)) {
+                    signingKey = new SigningKey(kid, secretKey);
+                }
+            } else {
+                PublicKey publicKey = readPublicKey(entry.get("publicKey"));
+                verificationKeys.put(kid, publicKey);
+                publicJwks.add(toJwk(kid, publicKey));
+                if (kid.equals(active)) {
+                    signingKey = new SigningKey(kid, readPrivateKey(entry.get("privateKey")));
+                }
+            }
+        }
+
+        if (signingKey == null) {
+            throw new IllegalStateException("Active key " + active + " is not part of JWT_KEYS");
+        }
+        return new KeyRing(signingKey, Map.copyOf(verificationKeys), List.copyOf(publicJwks), false);
+    }
+
+    private KeyRing buildLegacyRing(ZooKeeperConfig zooKeeperConfig) {
+        if (isHmac()) {
+            return new KeyRing(new SigningKey(null, legacyKey), Map.of(), List.of(), true);
+        }
+
+        PublicKey publicKey = readPublicKey(zooKeeperConfig.getStringValueByKey("JWT_PUBLIC_KEY"));
+        PrivateKey privateKey = readPrivateKey(zooKeeperConfig.getStringValueByKey("JWT_PRIVATE_KEY"));
+        PublicJwk<?> jwk = toJwk(null, publicKey);
+        return new KeyRing(new SigningKey(jwk.getId(), privateKey), Map.of(jwk.getId(), publicKey), List.of(jwk), true);
+    }
+
+    // Without an explicit kid the RFC 7638 thumbprint is used
+    private PublicJwk<?> toJwk(String kid, PublicKey publicKey) {
+        var builder = Jwks.builder().key(publicKey)
+                .algorithm(algorithm)
+                .publicKeyUse("sig");
+        return kid != null ? builder.id(kid).build() : builder.idFromThumbprint().build();
+    }
+
+    private PrivateKey readPrivateKey(String encoded) {
+        try {
+            return KeyFactory.getInstance(keyAlgorithm).generatePrivate(new PKCS8EncodedKeySpec(decodePem(encoded)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid private key for " + keyAlgorithm, e);
+        }
+    }
+
+    private PublicKey readPublicKey(String encoded) {
+        try {
+            return KeyFactory.getInstance(keyAlgorithm).generatePublic(new X509EncodedKeySpec(decodePem(encoded)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid public key for " + keyAlgorithm, e);
+        }
+    }
+
+    // Accepts both PEM and bare base64 DER
+    private static byte[] decodePem(String encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Key not configured");
+        }
+        String base64 = encoded.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+}
@@ -0,0 +1,34 @@
+package com.projects.marketmosaic.utils.jwt;
+
+import java.util.List;
+
+public final class TokenClaims {
+    private TokenClaims() {
+        // Private constructor to prevent instantiation
+    }
+
+    // Standard profile
+    public static final String USER_ID = "userId";
+    public static final String EMAIL = "email";
+    public static final String NAME = "name";
+    public static final String ROLE = "role";
+
+    // Compact profile
+    public static final String COMPACT_USER_ID = "uid";
+    public static final String COMPACT_ROLE = "rl";
+
+    // Index is the role code written by the compact profile, never reorder
+    private static final List<String> ROLE_CODES = List.of("USER", "SELLER", "ADMIN");
+
+    public static Object encodeRole(String role) {
+        int code = ROLE_CODES.indexOf(role);
+        return code >= 0 ? code : role;
+    }
+
+    public static String decodeRole(Object value) {
+        if (value instanceof Number code) {
+            return ROLE_CODES.get(code.intValue());
+        }
+        return (String) value;
+    }
+}
@@ -0,0 +1,39 @@
+package com.projects.marketmosaic.utils.jwt;
+
+/**
+ * Cheap structural check run before any crypto: three non-empty base64url segments
+ * within length bounds.
+ */
+public final class TokenFormat {
+    private static final int MIN_LENGTH = 16;
+
+    private TokenFormat() {
+        // Private constructor to prevent instantiation
+    }
+
+    public static boolean isWellFormed(String token, int maxLength) {
+        int length = token.length();
+        if (length < MIN_LENGTH || length > maxLength) {
+            return false;
+        }
+
+        int dots = 0;
+        int segmentStart = 0;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                if (i == segmentStart || ++dots > 2) {
+                    return false;
+                }
+                segmentStart = i + 1;
+            } else if (!isBase64Url(c)) {
+                return false;
+            }
+        }
+        return dots == 2 && segmentStart < length;
+    }
+
+    private static boolean isBase64Url(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+    }
+}
@@ -0,0 +1,39 @@
+package com.projects.marketmosaic.utils.jwt;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 128 bit identity of an issued token, written as the {@code jti} claim in 22 base64url chars.
+ * Revocation and session tracking key on it instead of the token string. Tokens issued without
+ * a {@code jti} fall back to their {@link TokenDigest}.
+ */
+public record TokenId(long high, long low) {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // Only has to be unique, the signature is what makes a token unforgeable
+    public static TokenId random() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new TokenId(random.nextLong(), random.nextLong());
+    }
+
+    public static TokenId of(TokenDigest digest) {
+        return new TokenId(digest.high(), digest.low());
+    }
+
+    public static TokenId parse(String value) {
+        byte[] bytes = DECODER.decode(value);
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("Token id must be 128 bits");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new TokenId(buffer.getLong(), buffer.getLong());
+    }
+
+    @Override
+    public String toString() {
+        return ENCODER.encodeToString(ByteBuffer.allocate(16).putLong(high).putLong(low).array());
+    }
+}
@@ -0,0 +1,168 @@
+package com.projects.marketmosaic.utils.jwt;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Mints HMAC-signed session tokens without going through the jjwt builder: the header is
+ * encoded once per signing key, the flat claim set is written by hand and {@link Mac}
+ * instances are reused per thread.
+ * <p>
+ * The output is byte-for-byte what {@code Jwts.builder().claims(claims).subject(..).issuedAt(..)
+ * .expiration(..).signWith(key)} produces for the same input, so both paths can coexist.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenMinter {
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final JwtSigningKeys signingKeys;
+
+    private final ThreadLocal<ThreadState> threadState = ThreadLocal.withInitial(ThreadState::new);
+
+    private volatile EncodedHeader header;
+
+    /**
+     * Whether the active key can be handled here; asymmetric keys go through jjwt.
+     */
+    public boolean supportsActiveKey() {
+        return signingKeys.getSigningKey().key() instanceof SecretKey;
+    }
+
+    /**
+     * @param claims claims in the order they should appear; values must be strings or numbers,
+     *               {@code null} values are left out like jjwt does
+     */
+    public String mint(Map<String, Object> claims, String subject, long issuedAtMillis, long expirationMillis) {
+        EncodedHeader encodedHeader = currentHeader();
+        ThreadState state = threadState.get();
+
+        StringBuilder json = state.json;
+        json.setLength(0);
+        json.append('{');
+        for (Map.Entry<String, Object> claim : claims.entrySet()) {
+            appendClaim(json, claim.getKey(), claim.getValue());
+        }
+        appendClaim(json, "sub", subject);
+        appendClaim(json, "iat", issuedAtMillis / 1000);
+        appendClaim(json, "exp", expirationMillis / 1000);
+        json.setCharAt(json.length() - 1, '}');
+
+        byte[] payload = BASE64URL.encode(json.toString().getBytes(StandardCharsets.UTF_8));
+        Mac mac = state.mac(encodedHeader);
+        mac.update(encodedHeader.bytes);
+        mac.update((byte) '.');
+        byte[] signature = BASE64URL.encode(mac.doFinal(payload));
+
+        byte[] token = new byte[encodedHeader.bytes.length + payload.length + signature.length + 2];
+        int offset = copy(encodedHeader.bytes, token, 0);
+        token[offset++] = '.';
+        offset = copy(payload, token, offset);
+        token[offset++] = '.';
+        copy(signature, token, offset);
+        return new String(token, StandardCharsets.US_ASCII);
+    }
+
+    private EncodedHeader currentHeader() {
+        JwtSigningKeys.SigningKey signingKey = signingKeys.getSigningKey();
+        EncodedHeader encodedHeader = header;
+        if (encodedHeader == null || encodedHeader.signingKey != signingKey) {
+            encodedHeader = new EncodedHeader(signingKey);
+            header = encodedHeader;
+        }
+        return encodedHeader;
+    }
+
+    private static int copy(byte[] source, byte[] target, int offset) {
+        System.arraycopy(source, 0, target, offset, source.length);
+        return offset + source.length;
+    }
+
+    // Writes "name":value, with a trailing comma that the caller replaces by the closing brace
+    private static void appendClaim(StringBuilder json, String name, Object value) {
+        if (value == null) {
+            return;
+        }
+        appendString(json, name);
+        json.append(':');
+        if (value instanceof String string) {
+            appendString(json, string);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            json.append(((Number) value).longValue());
+        } else {
+            throw new IllegalArgumentException("Unsupported claim type for " + name + ": " + value.getClass());
+        }
+        json.append(',');
+    }
+
+    // Same escaping as Jackson's default generator
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                case '\b' -> json.append("\\b");
+                case '\f' -> json.append("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    private static final class EncodedHeader {
+        private final JwtSigningKeys.SigningKey signingKey;
+        private final SecretKey key;
+        private final byte[] bytes;
+
+        private EncodedHeader(JwtSigningKeys.SigningKey signingKey) {
+            this.signingKey = signingKey;
+            this.key = (SecretKey) signingKey.key();
+
+            StringBuilder json = new StringBuilder("{");
+            if (signingKey.keyId() != null) {
+                appendClaim(json, "kid", signingKey.keyId());
+            }
+            appendClaim(json, "alg", "HS" + key.getAlgorithm().substring("HmacSHA".length()));
+            json.setCharAt(json.length() - 1, '}');
+            this.bytes = BASE64URL.encode(json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static final class ThreadState {
+        private final StringBuilder json = new StringBuilder(256);
+        private SecretKey key;
+        private Mac mac;
+
+        private Mac mac(EncodedHeader header) {
+            if (key != header.key) {
+                try {
+                    mac = Mac.getInstance(header.key.getAlgorithm());
+                    mac.init(header.key);
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("Cannot initialise " + header.key.getAlgorithm(), e);
+                }
+                key = header.key;
+            }
+            return mac;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.projects.marketmosaic.utils.jwt;
+
+/**
+ * Claim layout used when minting session tokens. Parsing always accepts both.
+ */
+public enum TokenProfile {
+    // userId, email, name and role under their full names
+    STANDARD,
+    // uid and a numeric role code only; email and name are looked up when needed
+    COMPACT
+}
@@ -0,0 +1,70 @@
+package com.projects.marketmosaic.utils.jwt;
+
+import com.projects.marketmosaic.constants.ErrorMessages;
+import com.projects.marketmosaic.enums.AuthStatus;
+import com.projects.marketmosaic.exception.exceptions.AuthException;
+
+/**
+ * Outcome of validating a token without throwing. Failure results are shared constants,
+ * so rejecting a bad token allocates nothing.
+ */
+public record TokenValidationResult(Status status, VerifiedToken token) {
+
+    public enum Status {
+        VALID,
+        EXPIRED,
+        MALFORMED,
+        BAD_SIGNATURE,
+        REVOKED
+    }
+
+    public static final TokenValidationResult EXPIRED = new TokenValidationResult(Status.EXPIRED, null);
+    public static final TokenValidationResult MALFORMED = new TokenValidationResult(Status.MALFORMED, null);
+    public static final TokenValidationResult BAD_SIGNATURE = new TokenValidationResult(Status.BAD_SIGNATURE, null);
+    public static final TokenValidationResult REVOKED = new TokenValidationResult(Status.REVOKED, null);
+
+    public static TokenValidationResult valid(VerifiedToken token) {
+        return new TokenValidationResult(Status.VALID, token);
+    }
+
+    public static TokenValidationResult failure(Status status) {
+        return switch (status) {
+            case EXPIRED -> EXPIRED;
+            case MALFORMED -> MALFORMED;
+            case BAD_SIGNATURE -> BAD_SIGNATURE;
+            case REVOKED -> REVOKED;
+            case VALID -> throw new IllegalArgumentException("VALID is not a failure");
+        };
+    }
+
+    public boolean isValid() {
+        return status == Status.VALID;
+    }
+
+    public AuthStatus code() {
+        return switch (status) {
+            case EXPIRED -> AuthStatus.AUTH_002;
+            case REVOKED -> AuthStatus.AUTH_004;
+            default -> AuthStatus.AUTH_001;
+        };
+    }
+
+    public String message() {
+        return switch (status) {
+            case VALID -> null;
+            case EXPIRED -> ErrorMessages.TOKEN_EXPIRED;
+            case MALFORMED -> ErrorMessages.INVALID_TOKEN_FORMAT;
+            case BAD_SIGNATURE -> ErrorMessages.INVALID_TOKEN_SIGNATURE;
+            case REVOKED -> ErrorMessages.TOKEN_BLACKLISTED;
+        };
+    }
+
+    // For callers that still report failures as exceptions
+    public AuthException toException() {
+        return switch (status) {
+            case EXPIRED -> AuthException.tokenExpired();
+            case REVOKED -> AuthException.tokenBlacklisted();
+            default -> AuthException.invalidToken(message());
+        };
+    }
+}
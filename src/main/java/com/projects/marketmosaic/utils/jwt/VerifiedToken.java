@@ -0,0 +1,48 @@
+package com.projects.marketmosaic.utils.jwt;
+
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.time.Instant;
+
+/**
+ * Immutable view of a token whose signature has already been checked.
+ * Built once per token by {@code JWTUtils.verify} and shared through the request.
+ */
+public record VerifiedToken(TokenId id, String subject, Long userId, String role, String email, String name,
+                            Instant issuedAt, Instant expiry) {
+
+    public static final String REQUEST_ATTRIBUTE = VerifiedToken.class.getName();
+
+    // Accepts both the standard and the compact claim profile
+    public static VerifiedToken from(Claims claims, TokenDigest digest) {
+        Long userId = claims.containsKey(TokenClaims.COMPACT_USER_ID)
+                ? claims.get(TokenClaims.COMPACT_USER_ID, Long.class)
+                : claims.get(TokenClaims.USER_ID, Long.class);
+        String role = TokenClaims.decodeRole(claims.containsKey(TokenClaims.COMPACT_ROLE)
+                ? claims.get(TokenClaims.COMPACT_ROLE)
+                : claims.get(TokenClaims.ROLE));
+
+        return new VerifiedToken(
+                claims.getId() != null ? TokenId.parse(claims.getId()) : TokenId.of(digest),
+                claims.getSubject(),
+                userId,
+                role,
+                claims.get(TokenClaims.EMAIL, String.class),
+                claims.get(TokenClaims.NAME, String.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    public static VerifiedToken fromRequest(HttpServletRequest request) {
+        return request.getAttribute(REQUEST_ATTRIBUTE) instanceof VerifiedToken token ? token : null;
+    }
+
+    public void bindTo(HttpServletRequest request) {
+        request.setAttribute(REQUEST_ATTRIBUTE, this);
+    }
+
+    public boolean isExpired() {
+        return expiry != null && expiry.isBefore(Instant.now());
+    }
+}
@@ -0,0 +1,107 @@
+package com.projects.marketmosaic.utils.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of already verified tokens, keyed by {@link TokenDigest}.
+ * An entry never outlives the token's own {@code exp}.
+ * <p>
+ * Tokens that failed verification are remembered for a short while as well, so replaying
+ * the same bad token does not pay for the signature check again.
+ */
+@Component
+public class VerifiedTokenCache {
+    private final Cache<TokenDigest, VerifiedToken> cache;
+
+    private final Cache<TokenDigest, TokenValidationResult.Status> rejected;
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry,
+                              @Value("${jwt.cache.max-size:10000}") long maxSize,
+                              @Value("${jwt.cache.ttl:PT5M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(ttl.toNanos()))
+                .recordStats()
+                .build();
+        this.rejected = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .build();
+
+        Gauge.builder("jwt.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Hit ratio of the verified token cache")
+                .register(meterRegistry);
+        Gauge.builder("jwt.cache.size", cache, Cache::estimatedSize)
+                .description("Number of verified tokens currently cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached verified token or runs the verifier once, even when several
+     * threads miss on the same token at the same time. Failed verifications are not cached here.
+     */
+    public VerifiedToken get(TokenDigest digest, Supplier<VerifiedToken> verifier) {
+        return cache.get(digest, _ -> verifier.get());
+    }
+
+    public VerifiedToken getIfPresent(TokenDigest digest) {
+        return cache.getIfPresent(digest);
+    }
+
+    public TokenValidationResult.Status getRejection(TokenDigest digest) {
+        return rejected.getIfPresent(digest);
+    }
+
+    public void reject(TokenDigest digest, TokenValidationResult.Status status) {
+        rejected.put(digest, status);
+    }
+
+    public void invalidate(String token) {
+        cache.invalidate(TokenDigest.of(token));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        rejected.invalidateAll();
+    }
+
+    /**
+     * Forgets the rejections only, as a token that failed against the old keys may verify against
+     * the new ones.
+     */
+    public void invalidateRejections() {
+        rejected.invalidateAll();
+    }
+
+    private record TokenExpiry(long maxTtlNanos) implements Expiry<TokenDigest, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(TokenDigest key, VerifiedToken token, long currentTime) {
+            if (token.expiry() == null) {
+                return maxTtlNanos;
+            }
+            long untilExpiry = TimeUnit.MILLISECONDS.toNanos(token.expiry().toEpochMilli() - System.currentTimeMillis());
+            return Math.max(0, Math.min(maxTtlNanos, untilExpiry));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
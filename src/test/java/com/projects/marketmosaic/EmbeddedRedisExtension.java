@@ -0,0 +1,91 @@
+package com.projects.marketmosaic;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One embedded Redis server per test class on a free port, emptied before every test. Register
+ * it as a static field with {@code @RegisterExtension}.
+ * <p>
+ * Every {@link #redisTemplate()} gets its own connection, the way separate nodes would connect;
+ * the connections are closed after the test, behind the test's own {@code @AfterEach}.
+ */
+public class EmbeddedRedisExtension implements BeforeAllCallback, AfterAllCallback, BeforeEachCallback, AfterEachCallback {
+    private final List<LettuceConnectionFactory> connectionFactories = new ArrayList<>();
+    private RedisServer redisServer;
+    private LettuceConnectionFactory adminConnectionFactory;
+    private int port;
+
+    @Override
+    public void beforeAll(ExtensionContext context) throws IOException {
+        port = freePort();
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        adminConnectionFactory = connectionFactory(port);
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) throws IOException {
+        adminConnectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        flushAll();
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        connectionFactories.forEach(LettuceConnectionFactory::destroy);
+        connectionFactories.clear();
+    }
+
+    public int port() {
+        return port;
+    }
+
+    public StringRedisTemplate redisTemplate() {
+        return redisTemplate(port);
+    }
+
+    // Also for a port nothing listens on, to see how callers cope with Redis being down
+    public StringRedisTemplate redisTemplate(int redisPort) {
+        LettuceConnectionFactory connectionFactory = connectionFactory(redisPort);
+        connectionFactories.add(connectionFactory);
+        return new StringRedisTemplate(connectionFactory);
+    }
+
+    public void flushAll() {
+        adminConnectionFactory.getConnection().serverCommands().flushAll();
+    }
+
+    public static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static LettuceConnectionFactory connectionFactory(int redisPort) {
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("localhost", redisPort));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        return connectionFactory;
+    }
+}
@@ -0,0 +1,113 @@
+package com.projects.marketmosaic.config.security;
+
+import com.projects.marketmosaic.EmbeddedRedisExtension;
+import com.projects.marketmosaic.utils.AuthRedisManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs several limiter nodes against one embedded Redis server.
+ */
+class DistributedRateLimiterTest {
+    @RegisterExtension
+    static final EmbeddedRedisExtension redis = new EmbeddedRedisExtension();
+
+    private final List<DistributedRateLimiter> limiters = new ArrayList<>();
+
+    @AfterEach
+    void stopNodes() {
+        limiters.forEach(DistributedRateLimiter::close);
+    }
+
+    @Test
+    void tryAcquire_TwoNodes_ShareOneAllowance() {
+        // Arrange
+        DistributedRateLimiter nodeA = node(redis.port(), 0.25, Duration.ofMinutes(1));
+        DistributedRateLimiter nodeB = node(redis.port(), 0.25, Duration.ofMinutes(1));
+
+        // Act
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            allowed += nodeA.tryAcquire("client", 20, Duration.ofHours(1)) == 0 ? 1 : 0;
+            allowed += nodeB.tryAcquire("client", 20, Duration.ofHours(1)) == 0 ? 1 : 0;
+        }
+
+        // Assert
+        assertEquals(20, allowed);
+        long retryAfter = nodeA.tryAcquire("client", 20, Duration.ofHours(1));
+        assertTrue(retryAfter > 0);
+        assertTrue(retryAfter <= Duration.ofMinutes(3).toNanos());
+    }
+
+    @Test
+    void returnIdle_UnusedPermits_GoBackToTheCluster() throws InterruptedException {
+        // Arrange
+        DistributedRateLimiter nodeA = node(redis.port(), 0.5, Duration.ofMillis(20));
+        DistributedRateLimiter nodeB = node(redis.port(), 0.5, Duration.ofMinutes(1));
+        assertEquals(0, nodeA.tryAcquire("client", 10, Duration.ofHours(1)));
+        Thread.sleep(40);
+
+        // Act
+        nodeA.returnIdle();
+
+        // Assert
+        assertEquals(0, nodeA.size());
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            allowed += nodeB.tryAcquire("client", 10, Duration.ofHours(1)) == 0 ? 1 : 0;
+        }
+        assertEquals(9, allowed);
+    }
+
+    @Test
+    void tryAcquire_ZeroBatchRatio_GoesToRedisEveryTime() {
+        // Arrange
+        DistributedRateLimiter nodeA = node(redis.port(), 0, Duration.ofMinutes(1));
+        DistributedRateLimiter nodeB = node(redis.port(), 0, Duration.ofMinutes(1));
+        assertEquals(0, nodeA.tryAcquire("client", 3, Duration.ofHours(1)));
+        assertEquals(0, nodeA.tryAcquire("client", 3, Duration.ofHours(1)));
+
+        // Act
+        long first = nodeB.tryAcquire("client", 3, Duration.ofHours(1));
+        long second = nodeB.tryAcquire("client", 3, Duration.ofHours(1));
+
+        // Assert
+        assertEquals(0, first);
+        assertTrue(second > 0);
+        assertTrue(redis.redisTemplate().hasKey(DistributedRateLimiter.KEY_PREFIX + "client"));
+    }
+
+    @Test
+    void tryAcquire_RedisUnavailable_FallsBackToTheLocalShare() {
+        // Arrange
+        DistributedRateLimiter node = node(EmbeddedRedisExtension.freePort(), 0.1, Duration.ofMinutes(1), 4);
+
+        // Act
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            allowed += node.tryAcquire("client", 20, Duration.ofHours(1)) == 0 ? 1 : 0;
+        }
+
+        // Assert
+        assertEquals(5, allowed);
+    }
+
+    private DistributedRateLimiter node(int redisPort, double batchRatio, Duration lease) {
+        return node(redisPort, batchRatio, lease, 1);
+    }
+
+    private DistributedRateLimiter node(int redisPort, double batchRatio, Duration lease, int nodes) {
+        DistributedRateLimiter limiter = new DistributedRateLimiter(new RateLimiter(), null,
+                new AuthRedisManager(redis.redisTemplate(redisPort)), false, true,
+                batchRatio, lease, Duration.ofSeconds(1), Duration.ofMinutes(1), nodes);
+        limiters.add(limiter);
+        return limiter;
+    }
+}
@@ -0,0 +1,90 @@
+package com.projects.marketmosaic.config.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.marketmosaic.repositories.UserRepository;
+import com.projects.marketmosaic.utils.CookieUtils;
+import com.projects.marketmosaic.utils.JWTUtils;
+import com.projects.marketmosaic.utils.TokenValidator;
+import com.projects.marketmosaic.utils.jwt.TokenId;
+import com.projects.marketmosaic.utils.jwt.TokenValidationResult;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JWTFilterTest {
+    private final TokenValidator tokenValidator = mock(TokenValidator.class);
+    private final CookieUtils cookieUtils = mock(CookieUtils.class);
+    private JWTFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new JWTFilter(mock(JWTUtils.class), tokenValidator, mock(CustomUserDetailsService.class), cookieUtils,
+                new ObjectMapper());
+        when(cookieUtils.extractJwtFromCookies(any())).thenReturn("expired.access.token");
+        when(tokenValidator.validate("expired.access.token")).thenReturn(TokenValidationResult.EXPIRED);
+    }
+
+    @Test
+    void doFilter_RefreshWithExpiredAccessCookie_ReachesTheEndpoint() throws ServletException, IOException {
+        // Arrange
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("POST", "/auth/refresh"), response, chain);
+
+        // Assert
+        assertNotNull(chain.getRequest());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void doFilter_ProtectedPathWithExpiredAccessCookie_Rejects() throws ServletException, IOException {
+        // Arrange
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/users/jane.doe"), response, chain);
+
+        // Assert
+        assertNull(chain.getRequest());
+        assertEquals(401, response.getStatus());
+        assertTrue(response.getContentAsString().contains("AUTH_002"));
+    }
+
+    @Test
+    void doFilter_StatelessTokenWithoutRole_Rejects() throws ServletException, IOException {
+        // Arrange
+        VerifiedToken roleless = new VerifiedToken(TokenId.random(), "jane.doe", 48213L, null, null, null,
+                Instant.now(), Instant.now().plusSeconds(900));
+        when(cookieUtils.extractJwtFromCookies(any())).thenReturn("roleless.access.token");
+        when(tokenValidator.validate("roleless.access.token")).thenReturn(TokenValidationResult.valid(roleless));
+        JWTFilter statelessFilter = new JWTFilter(mock(JWTUtils.class), tokenValidator,
+                new CustomUserDetailsService(mock(UserRepository.class)), cookieUtils, new ObjectMapper());
+        ReflectionTestUtils.setField(statelessFilter, "stateless", true);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        statelessFilter.doFilter(new MockHttpServletRequest("GET", "/users/jane.doe"), response, chain);
+
+        // Assert
+        assertNull(chain.getRequest());
+        assertEquals(401, response.getStatus());
+        assertTrue(response.getContentAsString().contains("AUTH_001"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.projects.marketmosaic.config.security;
+
+import com.projects.marketmosaic.EmbeddedRedisExtension;
+import com.projects.marketmosaic.utils.AuthRedisManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginAttemptTrackerTest {
+    @RegisterExtension
+    static final EmbeddedRedisExtension redis = new EmbeddedRedisExtension();
+
+    private final StringRedisTemplate redisTemplate = redis.redisTemplate();
+    private final LoginAttemptTracker tracker = new LoginAttemptTracker(new AuthRedisManager(redisTemplate), 3, 30);
+
+    @Test
+    void recordFailedLogin_LastAllowedAttempt_LocksAccount() {
+        // Arrange
+        assertEquals(new LoginAttemptTracker.LoginAttempts(1, 0), tracker.recordFailedLogin("jane.doe"));
+        assertEquals(new LoginAttemptTracker.LoginAttempts(2, 0), tracker.recordFailedLogin("jane.doe"));
+        long before = System.currentTimeMillis();
+
+        // Act
+        LoginAttemptTracker.LoginAttempts attempts = tracker.recordFailedLogin("jane.doe");
+
+        // Assert
+        assertEquals(3, attempts.attempts());
+        assertTrue(attempts.isLocked());
+        assertTrue(attempts.lockedUntil() >= before + Duration.ofMinutes(30).toMillis());
+        assertEquals(attempts, tracker.check("jane.doe"));
+        assertFalse(tracker.check("john.doe").isLocked());
+        long ttl = redisTemplate.getExpire(LoginAttemptTracker.KEY_PREFIX + "jane.doe", TimeUnit.SECONDS);
+        assertTrue(ttl > Duration.ofMinutes(29).toSeconds() && ttl <= Duration.ofMinutes(30).toSeconds());
+    }
+
+    @Test
+    void recordFailedLogin_WhileLocked_KeepsTheLockout() {
+        // Arrange
+        LoginAttemptTracker.LoginAttempts locked = null;
+        for (int i = 0; i < 3; i++) {
+            locked = tracker.recordFailedLogin("jane.doe");
+        }
+
+        // Act
+        LoginAttemptTracker.LoginAttempts attempts = tracker.recordFailedLogin("jane.doe");
+
+        // Assert
+        assertEquals(locked, attempts);
+    }
+
+    @Test
+    void check_LegacyLockout_StaysLockedUntilItExpires() {
+        // Arrange
+        LocalDateTime lockedUntil = LocalDateTime.now().plusMinutes(10);
+        redisTemplate.opsForValue().set("login:attempts:jane.doe", "3");
+        redisTemplate.opsForValue().set("login:lockout:jane.doe", lockedUntil.format(DateTimeFormatter.ISO_DATE_TIME));
+
+        // Act
+        LoginAttemptTracker.LoginAttempts attempts = tracker.check("jane.doe");
+
+        // Assert
+        assertTrue(attempts.isLocked());
+        assertEquals(3, attempts.attempts());
+        assertEquals(lockedUntil.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), attempts.lockedUntil());
+        tracker.clearAttempts("jane.doe");
+        assertEquals(new LoginAttemptTracker.LoginAttempts(0, 0), tracker.check("jane.doe"));
+    }
+
+    @Test
+    void recordFailedLogin_LegacyAttempts_CountTowardsTheLockout() {
+        // Arrange
+        redisTemplate.opsForValue().set("login:attempts:jane.doe", "2");
+
+        // Act
+        LoginAttemptTracker.LoginAttempts attempts = tracker.recordFailedLogin("jane.doe");
+
+        // Assert
+        assertEquals(3, attempts.attempts());
+        assertTrue(attempts.isLocked());
+        assertFalse(redisTemplate.hasKey("login:attempts:jane.doe"));
+        assertEquals(attempts, tracker.check("jane.doe"));
+    }
+
+    @Test
+    void recordSuccessfulLogin_ClearsAttempts() {
+        // Arrange
+        tracker.recordFailedLogin("jane.doe");
+        tracker.recordFailedLogin("jane.doe");
+
+        // Act
+        tracker.recordSuccessfulLogin("jane.doe");
+
+        // Assert
+        assertEquals(new LoginAttemptTracker.LoginAttempts(0, 0), tracker.check("jane.doe"));
+        assertEquals(new LoginAttemptTracker.LoginAttempts(1, 0), tracker.recordFailedLogin("jane.doe"));
+    }
+}
@@ -0,0 +1,196 @@
+package com.projects.marketmosaic.config.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.marketmosaic.utils.CookieUtils;
+import com.projects.marketmosaic.utils.JWTUtils;
+import com.projects.marketmosaic.utils.jwt.TokenId;
+import com.projects.marketmosaic.utils.jwt.TokenValidationResult;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RateLimitFilterTest {
+    private final JWTUtils jwtUtils = mock(JWTUtils.class);
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        MockEnvironment environment = new MockEnvironment().withProperty("test.login.requests", "2")
+                .withProperty("auth.rate-limit.trusted-proxies", "10.0.0.0/8, 192.168.1.10");
+        DistributedRateLimiter rateLimiter = new DistributedRateLimiter(new RateLimiter(), null, null, false, false, 0,
+                Duration.ofSeconds(1), Duration.ofMillis(50), Duration.ofSeconds(5), 1);
+        filter = new RateLimitFilter(rateLimiter, jwtUtils, mock(CookieUtils.class), new ObjectMapper(),
+                environment, null);
+
+        RequestMappingInfo.BuilderConfiguration config = new RequestMappingInfo.BuilderConfiguration();
+        config.setPatternParser(PathPatternParser.defaultInstance);
+        RequestMappingHandlerMapping mapping = new RequestMappingHandlerMapping();
+        Controller controller = new Controller();
+        mapping.registerMapping(RequestMappingInfo.paths("/auth/login").methods(RequestMethod.POST).options(config).build(),
+                controller, Controller.class.getMethod("login"));
+        mapping.registerMapping(RequestMappingInfo.paths("/auth/forgot-password").methods(RequestMethod.POST).options(config).build(),
+                controller, Controller.class.getMethod("forgotPassword"));
+        mapping.registerMapping(RequestMappingInfo.paths("/orders/{id}").options(config).build(),
+                controller, Controller.class.getMethod("order"));
+        mapping.registerMapping(RequestMappingInfo.paths("/health").options(config).build(),
+                controller, Controller.class.getMethod("health"));
+        filter.register(mapping);
+    }
+
+    @Test
+    void doFilter_OverLimit_RejectsWith429AndRetryAfter() throws ServletException, IOException {
+        // Arrange
+        send("POST", "/auth/login", null);
+        send("POST", "/auth/login", null);
+
+        // Act
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request("POST", "/auth/login", null), response, chain);
+
+        // Assert
+        assertEquals(429, response.getStatus());
+        assertEquals("30", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertNull(chain.getRequest());
+        assertEquals(200, send("GET", "/auth/login", null).getStatus());
+        assertEquals(200, send("GET", "/health", null).getStatus());
+    }
+
+    @Test
+    void doFilter_UsernameKey_LimitsEachUserSeparately() throws ServletException, IOException {
+        // Arrange
+        token("jane.doe");
+        token("john.doe");
+        send("GET", "/orders/1", "jane.doe");
+
+        // Act
+        MockHttpServletResponse jane = send("GET", "/orders/2", "jane.doe");
+        MockHttpServletResponse john = send("GET", "/orders/3", "john.doe");
+
+        // Assert
+        assertEquals(429, jane.getStatus());
+        assertEquals(200, john.getStatus());
+    }
+
+    @Test
+    void doFilter_FieldKey_LimitsEachEmailSeparatelyAndKeepsBodyReadable() throws ServletException, IOException {
+        // Arrange
+        forgotPassword("{\"email\": \"jane@example.com\"}", new MockFilterChain());
+
+        // Act
+        MockHttpServletResponse jane = forgotPassword("{\"email\": \" Jane@Example.com\"}", new MockFilterChain());
+        MockFilterChain johnChain = new MockFilterChain();
+        MockHttpServletResponse john = forgotPassword("{\"email\": \"john@example.com\"}", johnChain);
+
+        // Assert
+        assertEquals(429, jane.getStatus());
+        assertEquals(200, john.getStatus());
+        assertEquals("{\"email\": \"john@example.com\"}",
+                new String(johnChain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void doFilter_BehindTrustedProxies_LimitsEachForwardedClient() throws ServletException, IOException {
+        // Arrange
+        forwardedLogin("203.0.113.7, 192.168.1.10");
+        forwardedLogin("203.0.113.7, 192.168.1.10");
+
+        // Act
+        MockHttpServletResponse spoofed = forwardedLogin("198.51.100.2, 203.0.113.7, 192.168.1.10");
+        MockHttpServletResponse other = forwardedLogin("198.51.100.2, 192.168.1.10");
+
+        // Assert
+        assertEquals(429, spoofed.getStatus());
+        assertEquals(200, other.getStatus());
+    }
+
+    @Test
+    void clientAddress_UntrustedPeer_IgnoresForwardedFor() {
+        // Arrange
+        MockHttpServletRequest request = request("POST", "/auth/login", null);
+        request.setRemoteAddr("203.0.113.7");
+        request.addHeader("X-Forwarded-For", "198.51.100.2");
+
+        // Act
+        String address = filter.clientAddress(request);
+
+        // Assert
+        assertEquals("203.0.113.7", address);
+    }
+
+    private MockHttpServletResponse forwardedLogin(String forwardedFor) throws ServletException, IOException {
+        MockHttpServletRequest request = request("POST", "/auth/login", null);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private MockHttpServletResponse forgotPassword(String body, MockFilterChain chain)
+            throws ServletException, IOException {
+        MockHttpServletRequest request = request("POST", "/auth/forgot-password", null);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private MockHttpServletResponse send(String method, String path, String user) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(method, path, user), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String path, String user) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr("10.0.0.1");
+        if (user != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + user);
+        }
+        return request;
+    }
+
+    private void token(String username) {
+        VerifiedToken token = new VerifiedToken(TokenId.random(), username, 1L, "USER", null, null,
+                Instant.now(), Instant.now().plusSeconds(900));
+        when(jwtUtils.extractTokenFromHeader("Bearer " + username)).thenReturn(username);
+        when(jwtUtils.validate(username)).thenReturn(TokenValidationResult.valid(token));
+    }
+
+    static class Controller {
+        @RateLimited(requests = "${test.login.requests}", period = "PT1M")
+        public void login() {
+        }
+
+        @RateLimited(requests = "1", period = "PT1H", key = RateLimited.Key.FIELD, field = "email")
+        public void forgotPassword() {
+        }
+
+        @RateLimited(requests = "1", period = "PT1H", key = RateLimited.Key.USERNAME)
+        public void order() {
+        }
+
+        public void health() {
+        }
+    }
+}
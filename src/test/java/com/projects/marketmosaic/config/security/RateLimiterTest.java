@@ -0,0 +1,95 @@
+package com.projects.marketmosaic.config.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    @Test
+    void tryAcquire_BurstUsedUp_RejectsWithRetryAfter() {
+        // Arrange
+        RateLimiter rateLimiter = new RateLimiter();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.isAllowed("client", 5, Duration.ofMinutes(1)));
+        }
+
+        // Act
+        long retryAfter = rateLimiter.tryAcquire("client", 5, Duration.ofMinutes(1));
+
+        // Assert
+        assertTrue(retryAfter > 0);
+        assertTrue(retryAfter <= Duration.ofSeconds(12).toNanos());
+        assertTrue(rateLimiter.isAllowed("other", 5, Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void tryAcquire_AfterInterval_AllowsOneMore() throws InterruptedException {
+        // Arrange
+        RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.isAllowed("client", 2, Duration.ofSeconds(1));
+        rateLimiter.isAllowed("client", 2, Duration.ofSeconds(1));
+        assertFalse(rateLimiter.isAllowed("client", 2, Duration.ofSeconds(1)));
+
+        // Act
+        Thread.sleep(600);
+
+        // Assert
+        assertTrue(rateLimiter.isAllowed("client", 2, Duration.ofSeconds(1)));
+        assertFalse(rateLimiter.isAllowed("client", 2, Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void tryAcquire_ConcurrentCallers_AllowExactlyTheBurst() throws Exception {
+        // Arrange
+        RateLimiter rateLimiter = new RateLimiter();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<Integer>> workers = new ArrayList<>();
+        for (int worker = 0; worker < 8; worker++) {
+            workers.add(executor.submit(() -> {
+                int allowed = 0;
+                for (int i = 0; i < 1_000; i++) {
+                    if (rateLimiter.isAllowed("client", 500, Duration.ofHours(1))) {
+                        allowed++;
+                    }
+                }
+                return allowed;
+            }));
+        }
+        int allowed = 0;
+        for (Future<Integer> worker : workers) {
+            allowed += worker.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(500, allowed);
+    }
+
+    @Test
+    void evictIdle_DropsOnlyDrainedKeys() throws InterruptedException {
+        // Arrange
+        RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.isAllowed("idle", 10, Duration.ofMillis(10));
+        rateLimiter.isAllowed("busy", 1, Duration.ofHours(1));
+        Thread.sleep(20);
+
+        // Act
+        rateLimiter.evictIdle();
+
+        // Assert
+        assertEquals(1, rateLimiter.size());
+        assertFalse(rateLimiter.isAllowed("busy", 1, Duration.ofHours(1)));
+        assertTrue(rateLimiter.isAllowed("idle", 10, Duration.ofMillis(10)));
+    }
+}
@@ -0,0 +1,121 @@
+package com.projects.marketmosaic.config.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SketchRateLimiterTest {
+
+    @Test
+    void tryAcquire_HeavyHitter_IsLimitedExactlyAndReported() {
+        // Arrange
+        SketchRateLimiter rateLimiter = new SketchRateLimiter(1024, 16, 0.5);
+
+        // Act
+        int allowed = 0;
+        for (int i = 0; i < 25; i++) {
+            allowed += rateLimiter.tryAcquire("attacker", 10, Duration.ofMinutes(1)) == 0 ? 1 : 0;
+        }
+
+        // Assert
+        assertEquals(10, allowed);
+        assertEquals(1, rateLimiter.heavyHitterCount());
+        List<SketchRateLimiter.Offender> offenders = rateLimiter.topOffenders(5);
+        assertEquals(List.of(new SketchRateLimiter.Offender("attacker", 25, 15)), offenders);
+        long retryAfter = rateLimiter.tryAcquire("attacker", 10, Duration.ofMinutes(1));
+        assertTrue(retryAfter > 0 && retryAfter <= Duration.ofSeconds(6).toNanos());
+    }
+
+    @Test
+    void tryAcquire_SprayOfDistinctKeys_KeepsMemoryFixed() {
+        // Arrange
+        SketchRateLimiter rateLimiter = new SketchRateLimiter(65536, 16, 0.5);
+        long memory = 0;
+
+        // Act
+        int allowed = 0;
+        for (int i = 0; i < 200_000; i++) {
+            allowed += rateLimiter.tryAcquire("user-" + i, 10, Duration.ofMinutes(1)) == 0 ? 1 : 0;
+            if (i == 0) {
+                memory = rateLimiter.memoryBytes();
+            }
+        }
+
+        // Assert
+        assertEquals(memory, rateLimiter.memoryBytes());
+        assertTrue(rateLimiter.heavyHitterCount() <= 16);
+        assertTrue(allowed > 199_000, "allowed " + allowed);
+    }
+
+    @Test
+    void tryAcquire_HeavyHitterTableFull_FallsBackToTheSketch() {
+        // Arrange
+        SketchRateLimiter rateLimiter = new SketchRateLimiter(1024, 1, 0.5);
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.tryAcquire("first", 10, Duration.ofMinutes(1));
+        }
+
+        // Act
+        int allowed = 0;
+        for (int i = 0; i < 25; i++) {
+            allowed += rateLimiter.tryAcquire("second", 10, Duration.ofMinutes(1)) == 0 ? 1 : 0;
+        }
+
+        // Assert
+        assertEquals(1, rateLimiter.heavyHitterCount());
+        assertEquals(10, allowed);
+    }
+
+    @Test
+    void tryAcquire_ConcurrentPromotions_NeverPassTheHeavyHitterCap() throws InterruptedException {
+        // Arrange
+        SketchRateLimiter rateLimiter = new SketchRateLimiter(1024, 4, 0.5);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    rateLimiter.tryAcquire("key-" + thread + "-" + i % 64, 2, Duration.ofMinutes(1));
+                }
+            }));
+        }
+
+        // Act
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Assert
+        assertEquals(4, rateLimiter.heavyHitterCount());
+    }
+
+    @Test
+    void evictIdle_QuietHeavyHitter_IsLeftToTheSketch() throws InterruptedException {
+        // Arrange
+        SketchRateLimiter rateLimiter = new SketchRateLimiter(1024, 16, 0.5);
+        for (int i = 0; i < 4; i++) {
+            rateLimiter.tryAcquire("burst", 4, Duration.ofMillis(20));
+        }
+        assertEquals(1, rateLimiter.heavyHitterCount());
+        Thread.sleep(60);
+
+        // Act
+        rateLimiter.evictIdle();
+
+        // Assert
+        assertEquals(0, rateLimiter.heavyHitterCount());
+        assertEquals(0, rateLimiter.tryAcquire("burst", 4, Duration.ofMillis(20)));
+    }
+}
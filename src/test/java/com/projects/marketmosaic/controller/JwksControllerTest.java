@@ -0,0 +1,102 @@
+package com.projects.marketmosaic.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.marketmosaic.common.config.ZooKeeperConfig;
+import com.projects.marketmosaic.utils.jwt.JwtSigningKeys;
+import com.projects.marketmosaic.utils.jwt.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwksControllerTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void jwks_Es256Ring_PublishesOnlyPublicParameters() throws Exception {
+        // Arrange
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        JwksController controller = controller("ES256", "{\"active\": \"2025-10\", \"keys\": ["
+                + key("2025-09", generator.generateKeyPair(), false) + ", "
+                + key("2025-10", generator.generateKeyPair(), true) + "]}");
+
+        // Act
+        List<Map<String, Object>> keys = publishedKeys(controller.jwks());
+
+        // Assert
+        assertEquals(2, keys.size());
+        assertEquals(List.of("2025-09", "2025-10"), keys.stream().map(jwk -> jwk.get("kid")).toList());
+        for (Map<String, Object> jwk : keys) {
+            assertEquals("EC", jwk.get("kty"));
+            assertEquals("ES256", jwk.get("alg"));
+            assertEquals("P-256", jwk.get("crv"));
+            assertEquals("sig", jwk.get("use"));
+            assertTrue(jwk.containsKey("x") && jwk.containsKey("y"));
+            assertFalse(jwk.containsKey("d"));
+        }
+    }
+
+    @Test
+    void jwks_EdDsaRing_PublishesOnlyPublicParameters() throws Exception {
+        // Arrange
+        JwksController controller = controller("EdDSA", "{\"active\": \"2025-10\", \"keys\": ["
+                + key("2025-10", KeyPairGenerator.getInstance("Ed25519").generateKeyPair(), true) + "]}");
+
+        // Act
+        List<Map<String, Object>> keys = publishedKeys(controller.jwks());
+
+        // Assert
+        assertEquals(1, keys.size());
+        Map<String, Object> jwk = keys.get(0);
+        assertEquals("2025-10", jwk.get("kid"));
+        assertEquals("OKP", jwk.get("kty"));
+        assertEquals("EdDSA", jwk.get("alg"));
+        assertEquals("Ed25519", jwk.get("crv"));
+        assertTrue(jwk.containsKey("x"));
+        assertFalse(jwk.containsKey("d"));
+    }
+
+    // Serialized the way the endpoint writes the body
+    private List<Map<String, Object>> publishedKeys(ResponseEntity<Map<String, Object>> response) throws Exception {
+        Map<String, List<Map<String, Object>>> body = objectMapper.readValue(
+                objectMapper.writeValueAsString(response.getBody()), new TypeReference<>() {
+                });
+        return body.get("keys");
+    }
+
+    private JwksController controller(String algorithm, String keys) {
+        ZooKeeperConfig zooKeeperConfig = mock(ZooKeeperConfig.class);
+        when(zooKeeperConfig.getStringValueByKey("JWT_KEYS")).thenReturn(keys);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<CuratorFramework> curatorProvider = mock(ObjectProvider.class);
+        JwtSigningKeys signingKeys = new JwtSigningKeys(zooKeeperConfig,
+                new VerifiedTokenCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1)), objectMapper,
+                curatorProvider, algorithm);
+        JwksController controller = new JwksController(signingKeys);
+        ReflectionTestUtils.setField(controller, "maxAge", Duration.ofMinutes(10));
+        return controller;
+    }
+
+    private static String key(String kid, KeyPair keyPair, boolean withPrivateKey) {
+        Base64.Encoder encoder = Base64.getEncoder();
+        return "{\"kid\": \"" + kid + "\", \"publicKey\": \"" + encoder.encodeToString(keyPair.getPublic().getEncoded())
+                + (withPrivateKey ? "\", \"privateKey\": \"" + encoder.encodeToString(keyPair.getPrivate().getEncoded()) : "")
+                + "\"}";
+    }
+}
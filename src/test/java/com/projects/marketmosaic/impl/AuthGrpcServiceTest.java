@@ -5,6 +5,9 @@ import auth.Auth;
 import com.projects.marketmosaic.common.dto.resp.TokenValidationRespDTO;
 import com.projects.marketmosaic.service.AuthService;
 import com.projects.marketmosaic.service.impl.AuthGrpcService;
+import com.projects.marketmosaic.utils.TokenValidator;
+import com.projects.marketmosaic.utils.jwt.TokenValidationResult;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
 import io.grpc.ManagedChannel;
 import io.grpc.Server;
 import io.grpc.inprocess.InProcessChannelBuilder;
@@ -23,6 +26,9 @@ import java.util.concurrent.TimeUnit;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class AuthGrpcServiceTest {
@@ -30,6 +36,9 @@ class AuthGrpcServiceTest {
     @Mock
     private AuthService authService;
 
+    @Mock
+    private TokenValidator tokenValidator;
+
     @Mock
     private jakarta.servlet.http.HttpServletRequest request;
 
@@ -40,12 +49,13 @@ class AuthGrpcServiceTest {
     @BeforeEach
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
+        when(tokenValidator.validate(any())).thenReturn(TokenValidationResult.valid(mock(VerifiedToken.class)));
 
         // Create a server using a random name
         String serverName = InProcessServerBuilder.generateName();
         server = InProcessServerBuilder.forName(serverName)
                 .directExecutor()
-                .addService(new AuthGrpcService(authService))
+                .addService(new AuthGrpcService(authService, tokenValidator))
                 .build()
                 .start();
 
@@ -132,4 +142,19 @@ class AuthGrpcServiceTest {
         assertEquals("", response.getName());
         assertEquals(0, response.getAuthoritiesCount());
     }
-}
\ No newline at end of file
+
+    @Test
+    void validateToken_RejectedToken_ReturnsReasonWithoutUserLookup() {
+        // Arrange
+        when(tokenValidator.validate(any())).thenReturn(TokenValidationResult.EXPIRED);
+
+        // Act
+        Auth.TokenResponse response = blockingStub.validateToken(Auth.TokenRequest.getDefaultInstance());
+
+        // Assert
+        assertFalse(response.getValid());
+        assertEquals("EXPIRED", response.getReason());
+        assertEquals("", response.getUsername());
+        verify(authService, never()).validateToken(any());
+    }
+}
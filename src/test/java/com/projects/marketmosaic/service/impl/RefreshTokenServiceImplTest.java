@@ -0,0 +1,117 @@
+package com.projects.marketmosaic.service.impl;
+
+import com.projects.marketmosaic.constants.ErrorMessages;
+import com.projects.marketmosaic.entity.RefreshTokenEntity;
+import com.projects.marketmosaic.entity.UserEntity;
+import com.projects.marketmosaic.exception.exceptions.AuthException;
+import com.projects.marketmosaic.repositories.RefreshTokenRepository;
+import com.projects.marketmosaic.service.RefreshTokenService;
+import com.projects.marketmosaic.service.TokenBlackListService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RefreshTokenServiceImplTest {
+    private final RefreshTokenRepository refreshTokenRepository = mock(RefreshTokenRepository.class);
+    private final TokenBlackListService tokenBlackListService = mock(TokenBlackListService.class);
+    private final UserEntity user = new UserEntity();
+
+    // Stands in for the refresh_tokens table, keyed by token hash
+    private final Map<String, RefreshTokenEntity> stored = new HashMap<>();
+
+    private RefreshTokenServiceImpl refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenServiceImpl(refreshTokenRepository, tokenBlackListService);
+        ReflectionTestUtils.setField(refreshTokenService, "refreshTokenTtl", Duration.ofDays(14));
+        user.setId(1L);
+        user.setUsername("jane.doe");
+
+        when(refreshTokenRepository.save(any())).thenAnswer(invocation -> {
+            RefreshTokenEntity entity = invocation.getArgument(0);
+            entity.setId((long) stored.size() + 1);
+            stored.put(entity.getTokenHash(), entity);
+            return entity;
+        });
+        when(refreshTokenRepository.findByTokenHash(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(stored.get(invocation.<String>getArgument(0))));
+        when(refreshTokenRepository.markUsed(anyLong())).thenAnswer(invocation -> {
+            RefreshTokenEntity entity = stored.values().stream()
+                    .filter(token -> token.getId().equals(invocation.getArgument(0)))
+                    .findFirst().orElseThrow();
+            if (entity.isUsed()) {
+                return 0;
+            }
+            entity.setUsed(true);
+            return 1;
+        });
+    }
+
+    @Test
+    void rotate_UnusedToken_ConsumesItAndIssuesNextInSameFamily() {
+        // Arrange
+        RefreshTokenService.Issued issued = refreshTokenService.issue(user);
+
+        // Act
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(issued.refreshToken());
+
+        // Assert
+        assertEquals(user, rotation.user());
+        assertEquals(issued.familyId(), rotation.familyId());
+        assertNotEquals(issued.refreshToken(), rotation.refreshToken());
+        assertEquals(2, stored.size());
+        assertEquals(1, stored.values().stream().filter(RefreshTokenEntity::isUsed).count());
+        assertTrue(stored.values().stream().allMatch(token -> token.getFamilyId().equals(issued.familyId())));
+    }
+
+    @Test
+    void rotate_ConsumedToken_RevokesFamilyAndAccessTokens() {
+        // Arrange
+        RefreshTokenService.Issued issued = refreshTokenService.issue(user);
+        refreshTokenService.rotate(issued.refreshToken());
+
+        // Act
+        AuthException exception = assertThrows(AuthException.class,
+                () -> refreshTokenService.rotate(issued.refreshToken()));
+
+        // Assert
+        assertEquals(ErrorMessages.REFRESH_TOKEN_REUSED, exception.getMessage());
+        verify(refreshTokenRepository).deleteByFamilyId(issued.familyId());
+        verify(tokenBlackListService).invalidateAllUserTokens(user);
+        assertEquals(2, stored.size());
+    }
+
+    @Test
+    void rotate_ExpiredToken_IsRejected() {
+        // Arrange
+        RefreshTokenService.Issued issued = refreshTokenService.issue(user);
+        RefreshTokenEntity entity = stored.values().iterator().next();
+        entity.setExpiryDate(LocalDateTime.now().minusMinutes(1));
+
+        // Act
+        AuthException exception = assertThrows(AuthException.class,
+                () -> refreshTokenService.rotate(issued.refreshToken()));
+
+        // Assert
+        assertEquals(ErrorMessages.INVALID_REFRESH_TOKEN, exception.getMessage());
+        verify(refreshTokenRepository).delete(entity);
+        verify(refreshTokenRepository, never()).markUsed(anyLong());
+        verify(tokenBlackListService, never()).invalidateAllUserTokens(any());
+    }
+}
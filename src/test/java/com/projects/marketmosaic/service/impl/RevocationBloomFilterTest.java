@@ -0,0 +1,79 @@
+package com.projects.marketmosaic.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevocationBloomFilterTest {
+    private static final long RETENTION = 15 * 60 * 1000L;
+    private static final int INSERTIONS = 100_000;
+    // Low half of the ids, keeps revoked and live ids apart
+    private static final long REVOKED = 1;
+    private static final long LIVE = 2;
+
+    @Test
+    void mightContain_EveryInsertedToken_NoFalseNegatives() {
+        // Arrange
+        RevocationBloomFilter filter = new RevocationBloomFilter(RETENTION, 4, INSERTIONS, 0.001);
+        long expiresAt = System.currentTimeMillis() + RETENTION;
+
+        // Act
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put(i, REVOKED, expiresAt);
+        }
+
+        // Assert
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertTrue(filter.mightContain(i, REVOKED));
+        }
+    }
+
+    @Test
+    void mightContain_AtCapacity_StaysNearConfiguredFalsePositiveRate() {
+        // Arrange
+        RevocationBloomFilter filter = new RevocationBloomFilter(RETENTION, 4, INSERTIONS, 0.001);
+        long expiresAt = System.currentTimeMillis() + RETENTION;
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put(i, REVOKED, expiresAt);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            if (filter.mightContain(i, LIVE)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        double rate = falsePositives / 1_000_000.0;
+        double estimated = filter.estimatedFalsePositiveRate();
+        assertTrue(rate < 0.0015, "False positive rate " + rate);
+        assertEquals(rate, estimated, rate / 2);
+    }
+
+    @Test
+    void put_ExpiryBeyondHorizon_BypassesFilterInsteadOfDroppingIt() {
+        // Arrange
+        RevocationBloomFilter filter = new RevocationBloomFilter(RETENTION, 4, INSERTIONS, 0.001);
+
+        // Act
+        filter.put(1, REVOKED, System.currentTimeMillis() + 10 * RETENTION);
+
+        // Assert
+        assertTrue(filter.mightContain(1, REVOKED));
+        assertTrue(filter.mightContain(1, LIVE));
+    }
+
+    @Test
+    void put_AlreadyExpired_IsIgnored() {
+        // Arrange
+        RevocationBloomFilter filter = new RevocationBloomFilter(RETENTION, 4, INSERTIONS, 0.001);
+
+        // Act
+        filter.put(1, REVOKED, System.currentTimeMillis() - 1);
+
+        // Assert
+        assertFalse(filter.mightContain(1, REVOKED));
+    }
+}
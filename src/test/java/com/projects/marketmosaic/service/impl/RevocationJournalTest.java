@@ -0,0 +1,86 @@
+package com.projects.marketmosaic.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevocationJournalTest {
+    @TempDir
+    Path dir;
+
+    private RevocationJournal journal;
+
+    @AfterEach
+    void close() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void load_AfterCompactionAndAppends_ReplaysSnapshotThenLog() throws IOException {
+        // Arrange
+        long now = System.currentTimeMillis();
+        RevocationJournal writer = new RevocationJournal(dir.toString());
+        writer.load(now, (high, low, expiresAt) -> fail("Nothing to load yet"));
+        writer.compact(now, consumer -> {
+            consumer.accept(1, 1, now + 60_000);
+            consumer.accept(2, 2, now - 1);
+        });
+        writer.append(3, 3, now + 60_000);
+        writer.append(1, 1, now + 120_000);
+        writer.close();
+
+        // Act
+        Map<List<Long>, Long> loaded = load(now);
+
+        // Assert
+        assertEquals(Map.of(List.of(1L, 1L), now + 120_000, List.of(3L, 3L), now + 60_000), loaded);
+    }
+
+    @Test
+    void load_TornLastRecord_IsDropped() throws IOException {
+        // Arrange
+        long now = System.currentTimeMillis();
+        RevocationJournal writer = new RevocationJournal(dir.toString());
+        writer.load(now, (high, low, expiresAt) -> { });
+        writer.append(1, 1, now + 60_000);
+        writer.close();
+        Files.write(dir.resolve("revocations.log"), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        // Act
+        Map<List<Long>, Long> loaded = load(now);
+
+        // Assert
+        assertEquals(Map.of(List.of(1L, 1L), now + 60_000), loaded);
+    }
+
+    @Test
+    void load_CorruptSnapshot_IsIgnored() throws IOException {
+        // Arrange
+        Files.write(dir.resolve("revocations.snapshot"), new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15});
+
+        // Act
+        Map<List<Long>, Long> loaded = load(System.currentTimeMillis());
+
+        // Assert
+        assertTrue(loaded.isEmpty());
+    }
+
+    private Map<List<Long>, Long> load(long now) throws IOException {
+        journal = new RevocationJournal(dir.toString());
+        Map<List<Long>, Long> loaded = new HashMap<>();
+        journal.load(now, (high, low, expiresAt) -> loaded.merge(List.of(high, low), expiresAt, Math::max));
+        return loaded;
+    }
+}
@@ -0,0 +1,49 @@
+package com.projects.marketmosaic.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevocationMetricsTest {
+    // Gauges only hold their object weakly, the test has to keep it reachable
+    private final Map<Long, Long> watermarks = Map.of(1L, 1_000L);
+
+    @Test
+    void bindTo_AfterMonitor_PublishesTableAndRecordedMeters() {
+        // Arrange
+        RevocationMetrics metrics = new RevocationMetrics();
+        RevocationTable table = RevocationTable.create(true);
+        metrics.monitor(table, watermarks, null);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        // Act
+        metrics.bindTo(registry);
+        table.put(1, 1, System.currentTimeMillis() + 60_000);
+        metrics.recordLookup(true, 100);
+        metrics.recordLookup(false, 50);
+        metrics.recordEvictions(3);
+        metrics.recordSessions(10);
+        metrics.recordExpire(2_000_000);
+        metrics.recordResync(1_000_000);
+
+        // Assert
+        assertEquals(1, registry.get("auth.revocation.entries").gauge().value());
+        assertEquals(table.memoryBytes(),
+                registry.get("auth.revocation.memory").tag("table", "off-heap").gauge().value());
+        assertEquals(1, registry.get("auth.revocation.watermarks").gauge().value());
+        assertEquals(1, registry.get("auth.revocation.lookup").tag("result", "revoked").timer().count());
+        assertEquals(1, registry.get("auth.revocation.lookup").tag("result", "live").timer().count());
+        assertEquals(3, registry.get("auth.revocations").tag("reason", "eviction").counter().count());
+        assertEquals(10, registry.get("auth.sessions.per.user").summary().max());
+        assertEquals(2, registry.get("auth.revocation.cleanup").tag("task", "expire").timer()
+                .totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(1, registry.get("auth.revocation.cleanup").tag("task", "resync").timer()
+                .totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(0, registry.get("auth.revocation.cleanup").tag("task", "purge").timer().count());
+        assertTrue(registry.find("auth.revocation.bloom.memory").meters().isEmpty());
+    }
+}
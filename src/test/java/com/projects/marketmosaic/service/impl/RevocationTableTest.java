@@ -0,0 +1,107 @@
+package com.projects.marketmosaic.service.impl;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevocationTableTest {
+
+    @ParameterizedTest(name = "offHeap={0}")
+    @ValueSource(booleans = {false, true})
+    void put_BeyondInitialCapacity_KeepsEveryEntry(boolean offHeap) {
+        // Arrange
+        RevocationTable table = RevocationTable.create(offHeap);
+
+        // Act
+        for (long i = 0; i < 100_000; i++) {
+            table.put(i, ~i, 1_000 + i);
+        }
+
+        // Assert
+        assertEquals(100_000, table.size());
+        for (long i = 0; i < 100_000; i++) {
+            assertEquals(1_000 + i, table.expiresAt(i, ~i));
+        }
+        assertEquals(0, table.expiresAt(100_000, ~100_000L));
+    }
+
+    @ParameterizedTest(name = "offHeap={0}")
+    @ValueSource(booleans = {false, true})
+    void put_ExistingId_KeepsLaterExpiry(boolean offHeap) {
+        // Arrange
+        RevocationTable table = RevocationTable.create(offHeap);
+        table.put(7, 7, 2_000);
+
+        // Act
+        table.put(7, 7, 1_000);
+        table.put(7, 7, 3_000);
+
+        // Assert
+        assertEquals(1, table.size());
+        assertEquals(3_000, table.expiresAt(7, 7));
+    }
+
+    @ParameterizedTest(name = "offHeap={0}")
+    @ValueSource(booleans = {false, true})
+    void expire_DropsOnlyExpiredEntriesAndShrinks(boolean offHeap) {
+        // Arrange
+        RevocationTable table = RevocationTable.create(offHeap);
+        long now = System.currentTimeMillis();
+        for (long i = 0; i < 100_000; i++) {
+            table.put(i, i, now + (i < 99_000 ? 1_000 : 60_000));
+        }
+        long grownBytes = table.memoryBytes();
+
+        // Act
+        int removed = table.expire(now + 2_000);
+
+        // Assert
+        assertEquals(99_000, removed);
+        assertEquals(1_000, table.size());
+        assertEquals(0, table.expiresAt(0, 0));
+        assertEquals(now + 60_000, table.expiresAt(99_500, 99_500));
+        assertTrue(table.memoryBytes() < grownBytes);
+    }
+
+    @ParameterizedTest(name = "offHeap={0}")
+    @ValueSource(booleans = {false, true})
+    void expire_RenewedEntry_KeptUntilLaterExpiry(boolean offHeap) {
+        // Arrange
+        RevocationTable table = RevocationTable.create(offHeap);
+        long now = System.currentTimeMillis();
+        table.put(7, 7, now + 1_000);
+        table.put(7, 7, now + 10_000);
+
+        // Act
+        int early = table.expire(now + 5_000);
+        int late = table.expire(now + 11_000);
+
+        // Assert
+        assertEquals(0, early);
+        assertEquals(1, late);
+        assertEquals(0, table.expiresAt(7, 7));
+    }
+
+    @ParameterizedTest(name = "offHeap={0}")
+    @ValueSource(booleans = {false, true})
+    void put_AfterExpiry_ReusesRemovedSlots(boolean offHeap) {
+        // Arrange
+        RevocationTable table = RevocationTable.create(offHeap);
+        long now = System.currentTimeMillis();
+        for (int round = 0; round < 20; round++) {
+            for (long i = 0; i < 500; i++) {
+                table.put(round, i, now + round * 1_000L + 500);
+            }
+            table.expire(now + round * 1_000L + 1_500);
+        }
+
+        // Act
+        table.put(99, 99, now + 100_000);
+
+        // Assert
+        assertEquals(1, table.size());
+        assertEquals(now + 100_000, table.expiresAt(99, 99));
+        assertEquals(0, table.expiresAt(19, 499));
+    }
+}
@@ -0,0 +1,76 @@
+package com.projects.marketmosaic.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+    private static final long TICK = 1_000;
+
+    @Test
+    void advanceTo_DeadlinesOnEveryLevel_FireWithinOneTickAfterDeadline() {
+        // Arrange
+        long start = 1_700_000_000_000L;
+        long[] deadlines = {
+                start + 1, start + 63 * TICK, start + 64 * TICK + 1, start + 15 * 60 * TICK,
+                start + 5 * 3600 * TICK, start + 4 * 86400 * TICK, start + 400L * 86400 * TICK};
+        TimingWheel wheel = new TimingWheel(TICK, start, handle -> deadlines[handle]);
+        for (int handle = 0; handle < deadlines.length; handle++) {
+            wheel.schedule(handle, deadlines[handle]);
+        }
+        long[] firedAt = new long[deadlines.length];
+
+        // Act
+        for (long now = start; now <= deadlines[deadlines.length - 1] + TICK; now += 60 * TICK) {
+            long current = now;
+            wheel.advanceTo(now, handle -> firedAt[handle] = current);
+        }
+
+        // Assert
+        for (int handle = 0; handle < deadlines.length; handle++) {
+            assertTrue(firedAt[handle] >= deadlines[handle], "handle " + handle + " fired early");
+            assertTrue(firedAt[handle] < deadlines[handle] + 60 * TICK + TICK, "handle " + handle + " fired late");
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advanceTo_DeadlineMovedOut_FiresAtNewDeadline() {
+        // Arrange
+        long start = 0;
+        long[] deadlines = {2 * 3600 * TICK};
+        TimingWheel wheel = new TimingWheel(TICK, start, handle -> deadlines[handle]);
+        wheel.schedule(0, deadlines[0]);
+        deadlines[0] = 5 * 3600 * TICK;
+        List<Long> fired = new ArrayList<>();
+
+        // Act
+        for (long now = start; now <= 6 * 3600 * TICK; now += TICK) {
+            long current = now;
+            wheel.advanceTo(now, handle -> fired.add(current));
+        }
+
+        // Assert
+        assertEquals(List.of(5 * 3600 * TICK), fired);
+    }
+
+    @Test
+    void advanceTo_OwnerGone_DropsHandleOnCascade() {
+        // Arrange
+        long[] deadlines = {3 * 3600 * TICK};
+        TimingWheel wheel = new TimingWheel(TICK, 0, handle -> deadlines[handle]);
+        wheel.schedule(0, deadlines[0]);
+        deadlines[0] = -1;
+        List<Integer> fired = new ArrayList<>();
+
+        // Act
+        wheel.advanceTo(4 * 3600 * TICK, fired::add);
+
+        // Assert
+        assertTrue(fired.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+}
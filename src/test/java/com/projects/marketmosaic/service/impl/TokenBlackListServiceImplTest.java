@@ -0,0 +1,401 @@
+package com.projects.marketmosaic.service.impl;
+
+import com.projects.marketmosaic.EmbeddedRedisExtension;
+import com.projects.marketmosaic.entity.UserEntity;
+import com.projects.marketmosaic.utils.AuthRedisManager;
+import com.projects.marketmosaic.utils.jwt.TokenId;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs several gateway nodes against one embedded Redis server.
+ */
+class TokenBlackListServiceImplTest {
+    @RegisterExtension
+    static final EmbeddedRedisExtension redis = new EmbeddedRedisExtension();
+
+    private final List<AuthRedisManager> redisManagers = new ArrayList<>();
+    private final List<RedisRevocationStore> stores = new ArrayList<>();
+    private final List<RevocationJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void stopNodes() {
+        redisManagers.forEach(AuthRedisManager::close);
+        journals.forEach(RevocationJournal::close);
+    }
+
+    @Test
+    void blacklistToken_OnOneNode_IsPushedToPeers() throws InterruptedException {
+        // Arrange
+        TokenBlackListServiceImpl nodeA = node();
+        TokenBlackListServiceImpl nodeB = node();
+
+        VerifiedToken tokenA = token("jane.doe");
+        VerifiedToken tokenB = token("jane.doe");
+
+        // Act
+        nodeA.blacklistToken(tokenA);
+
+        // Assert
+        assertTrue(nodeA.isTokenBlacklisted(tokenA));
+        awaitTrue(() -> nodeB.isTokenBlacklisted(tokenA));
+        assertFalse(nodeB.isTokenBlacklisted(tokenB));
+    }
+
+    @Test
+    void start_NewNode_LoadsExistingRevocations() {
+        // Arrange
+        VerifiedToken tokenA = token("jane.doe");
+        node().blacklistToken(tokenA);
+
+        // Act
+        TokenBlackListServiceImpl restarted = node();
+
+        // Assert
+        assertTrue(restarted.isTokenBlacklisted(tokenA));
+    }
+
+    @Test
+    void invalidateAllUserTokens_RevokesSessionsStoredOnOtherNode() throws InterruptedException {
+        // Arrange
+        TokenBlackListServiceImpl nodeA = node();
+        TokenBlackListServiceImpl nodeB = node();
+        VerifiedToken token1 = token("jane.doe");
+        VerifiedToken token2 = token("jane.doe");
+        VerifiedToken token3 = token("john.doe");
+        nodeA.storeUserToken("jane.doe", token1);
+        nodeA.storeUserToken("jane.doe", token2);
+        nodeA.storeUserToken("john.doe", token3);
+
+        // Act
+        nodeB.invalidateAllUserTokens(user("jane.doe"));
+
+        // Assert
+        assertTrue(nodeB.isTokenBlacklisted(token1));
+        assertTrue(nodeB.isTokenBlacklisted(token2));
+        awaitTrue(() -> nodeA.isTokenBlacklisted(token1) && nodeA.isTokenBlacklisted(token2));
+        assertFalse(nodeA.isTokenBlacklisted(token3));
+        assertTrue(nodeA.getUserTokens("jane.doe").isEmpty());
+        assertEquals(Set.of(token3.id()), nodeA.getUserTokens("john.doe"));
+    }
+
+    @Test
+    void getUserTokens_ExcludesLoggedOutTokens() {
+        // Arrange
+        TokenBlackListServiceImpl nodeA = node();
+        VerifiedToken token1 = token("jane.doe");
+        VerifiedToken token2 = token("jane.doe");
+        nodeA.storeUserToken("jane.doe", token1);
+        nodeA.storeUserToken("jane.doe", token2);
+
+        // Act
+        nodeA.blacklistToken(token1);
+
+        // Assert
+        assertEquals(Set.of(token2.id()), nodeA.getUserTokens("jane.doe"));
+    }
+
+    @Test
+    void storeUserToken_PastSessionCap_EvictsAndRevokesOldest() throws InterruptedException {
+        // Arrange
+        TokenBlackListServiceImpl nodeA = node(2);
+        TokenBlackListServiceImpl nodeB = node(2);
+        Instant now = Instant.now();
+        VerifiedToken oldest = token("jane.doe", now.minusSeconds(2));
+        VerifiedToken older = token("jane.doe", now.minusSeconds(1));
+        VerifiedToken newest = token("jane.doe", now);
+        nodeA.storeUserToken("jane.doe", oldest);
+        nodeA.storeUserToken("jane.doe", older);
+
+        // Act
+        nodeA.storeUserToken("jane.doe", newest);
+
+        // Assert
+        assertTrue(nodeA.isTokenBlacklisted(oldest));
+        awaitTrue(() -> nodeB.isTokenBlacklisted(oldest));
+        assertFalse(nodeB.isTokenBlacklisted(older));
+        assertFalse(nodeB.isTokenBlacklisted(newest));
+        assertEquals(Set.of(older.id(), newest.id()), nodeB.getUserTokens("jane.doe"));
+    }
+
+    @Test
+    void storeUserToken_PastSessionCap_ReturnsEvictedRefreshFamily() {
+        // Arrange
+        TokenBlackListServiceImpl nodeA = node(2);
+        Instant now = Instant.now();
+        nodeA.storeUserToken("jane.doe", token("jane.doe", now.minusSeconds(2)), "family-1");
+        nodeA.storeUserToken("jane.doe", token("jane.doe", now.minusSeconds(1)), "family-2");
+
+        // Act
+        Set<String> evicted = nodeA.storeUserToken("jane.doe", token("jane.doe", now), "family-3");
+
+        // Assert
+        assertEquals(Set.of("family-1"), evicted);
+    }
+
+    @Test
+    void storeUserToken_RefreshedFamily_ReplacesItsSession() {
+        // Arrange
+        TokenBlackListServiceImpl nodeA = node(2);
+        Instant now = Instant.now();
+        VerifiedToken phone = token("jane.doe", now.minusSeconds(2));
+        VerifiedToken laptop = token("jane.doe", now.minusSeconds(1));
+        VerifiedToken refreshedPhone = token("jane.doe", now);
+        nodeA.storeUserToken("jane.doe", phone, "phone");
+        nodeA.storeUserToken("jane.doe", laptop, "laptop");
+
+        // Act
+        Set<String> evicted = nodeA.storeUserToken("jane.doe", refreshedPhone, "phone");
+
+        // Assert
+        assertEquals(Set.of(), evicted);
+        assertFalse(nodeA.isTokenBlacklisted(laptop));
+        assertEquals(Set.of(laptop.id(), refreshedPhone.id()), nodeA.getUserTokens("jane.doe"));
+    }
+
+    @Test
+    void getUserTokens_Paged_ReturnsLiveSessionsOldestFirst() {
+        // Arrange
+        TokenBlackListServiceImpl nodeA = node();
+        Instant now = Instant.now();
+        nodeA.storeUserToken("jane.doe", token("jane.doe", now.minus(Duration.ofMinutes(20))));
+        List<TokenId> live = new ArrayList<>();
+        for (int i = 5; i > 0; i--) {
+            VerifiedToken token = token("jane.doe", now.minusSeconds(i));
+            nodeA.storeUserToken("jane.doe", token);
+            live.add(token.id());
+        }
+
+        // Act
+        List<TokenId> first = nodeA.getUserTokens("jane.doe", 0, 2);
+        List<TokenId> second = nodeA.getUserTokens("jane.doe", 2, 2);
+        List<TokenId> last = nodeA.getUserTokens("jane.doe", 4, 2);
+
+        // Assert
+        assertEquals(live.subList(0, 2), first);
+        assertEquals(live.subList(2, 4), second);
+        assertEquals(live.subList(4, 5), last);
+    }
+
+    @Test
+    void storeAndBlacklist_ConcurrentOnSeveralNodes_SessionIndexStaysConsistent() throws Exception {
+        // Arrange
+        List<TokenBlackListServiceImpl> nodes = List.of(node(), node(), node());
+        List<String> users = IntStream.range(0, 16).mapToObj(i -> "user-" + i).toList();
+        Map<String, Set<TokenId>> expected = new ConcurrentHashMap<>();
+        users.forEach(user -> expected.put(user, ConcurrentHashMap.newKeySet()));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<?>> workers = new ArrayList<>();
+        for (int worker = 0; worker < 8; worker++) {
+            workers.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                // Each worker logs out only its own logins, so the expected state has no races
+                List<VerifiedToken> loggedIn = new ArrayList<>();
+                for (int i = 0; i < 250; i++) {
+                    TokenBlackListServiceImpl node = nodes.get(random.nextInt(nodes.size()));
+                    if (loggedIn.isEmpty() || random.nextBoolean()) {
+                        VerifiedToken token = token(users.get(random.nextInt(users.size())));
+                        node.storeUserToken(token.subject(), token);
+                        expected.get(token.subject()).add(token.id());
+                        loggedIn.add(token);
+                    } else {
+                        VerifiedToken token = loggedIn.remove(random.nextInt(loggedIn.size()));
+                        node.blacklistToken(token);
+                        expected.get(token.subject()).remove(token.id());
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        for (String user : users) {
+            assertEquals(expected.get(user), stores.get(0).getSessions(user), user);
+            for (TokenBlackListServiceImpl node : nodes) {
+                assertEquals(expected.get(user), node.getUserTokens(user), user);
+            }
+        }
+    }
+
+    @Test
+    void invalidateAllUserTokens_LoginAfterwards_IsNotRevoked() {
+        // Arrange
+        TokenBlackListServiceImpl nodeA = node();
+        VerifiedToken before = token("jane.doe", Instant.now().minusSeconds(1));
+
+        // Act
+        nodeA.invalidateAllUserTokens(user("jane.doe"));
+        VerifiedToken after = token("jane.doe", Instant.now().plusSeconds(1));
+
+        // Assert
+        assertTrue(nodeA.isTokenBlacklisted(before));
+        assertFalse(nodeA.isTokenBlacklisted(after));
+    }
+
+    @Test
+    void invalidateAllUserTokens_LoginInTheSameSecond_IsNotRevoked() throws InterruptedException {
+        // Arrange
+        TokenBlackListServiceImpl nodeA = node();
+        TokenBlackListServiceImpl nodeB = node();
+        while (System.currentTimeMillis() % 1000 > 800) {
+            Thread.sleep(10);
+        }
+        VerifiedToken before = token("jane.doe");
+        nodeA.storeUserToken("jane.doe", before, null);
+
+        // Act
+        nodeA.invalidateAllUserTokens(user("jane.doe"));
+        VerifiedToken after = token("jane.doe");
+
+        // Assert
+        assertEquals(before.issuedAt(), after.issuedAt());
+        assertTrue(nodeA.isTokenBlacklisted(before));
+        assertFalse(nodeA.isTokenBlacklisted(after));
+        awaitTrue(() -> nodeB.isTokenBlacklisted(before));
+        assertFalse(nodeB.isTokenBlacklisted(after));
+    }
+
+    @Test
+    void revokeIssuedBefore_WatermarkNotRaised_IsNotBroadcast() throws InterruptedException {
+        // Arrange
+        AuthRedisManager redisManager = new AuthRedisManager(redis.redisTemplate());
+        redisManagers.add(redisManager);
+        RedisRevocationStore store = new RedisRevocationStore(redisManager);
+        List<Long> received = new CopyOnWriteArrayList<>();
+        store.subscribeWatermarks((userId, watermark) -> received.add(watermark));
+        long watermark = System.currentTimeMillis() / 1000;
+
+        // Act
+        store.revokeIssuedBefore(1, "jane.doe", watermark, Long.MAX_VALUE);
+        store.revokeIssuedBefore(1, "jane.doe", watermark, Long.MAX_VALUE);
+        store.revokeIssuedBefore(1, "jane.doe", watermark - 1, Long.MAX_VALUE);
+        store.revokeIssuedBefore(1, "jane.doe", watermark + 1, Long.MAX_VALUE);
+
+        // Assert
+        awaitTrue(() -> received.size() >= 2);
+        assertEquals(List.of(watermark, watermark + 1), received);
+        assertEquals(Map.of(1L, watermark + 1), store.loadWatermarks());
+    }
+
+    @Test
+    void start_NewNode_LoadsWatermarks() {
+        // Arrange
+        VerifiedToken token = token("jane.doe", Instant.now().minusSeconds(1));
+        node().invalidateAllUserTokens(user("jane.doe"));
+
+        // Act
+        TokenBlackListServiceImpl restarted = node();
+
+        // Assert
+        assertTrue(restarted.isTokenBlacklisted(token));
+        assertFalse(restarted.isTokenBlacklisted(token("john.doe")));
+    }
+
+    @Test
+    void start_RevocationStoreLost_RestoresFromJournal(@TempDir Path journalDir) {
+        // Arrange
+        TokenBlackListServiceImpl nodeA = node(new RevocationJournal(journalDir.toString()));
+        VerifiedToken compacted = token("jane.doe");
+        VerifiedToken appended = token("jane.doe");
+        nodeA.blacklistToken(compacted);
+        nodeA.compactJournal();
+        nodeA.blacklistToken(appended);
+        redis.flushAll();
+
+        // Act
+        TokenBlackListServiceImpl restarted = node(new RevocationJournal(journalDir.toString()));
+
+        // Assert
+        assertTrue(restarted.isTokenBlacklisted(compacted));
+        assertTrue(restarted.isTokenBlacklisted(appended));
+        assertFalse(restarted.isTokenBlacklisted(token("jane.doe")));
+    }
+
+    private static VerifiedToken token(String username) {
+        return token(username, Instant.now());
+    }
+
+    // Whole seconds, like the iat and exp of a real token
+    private static VerifiedToken token(String username, Instant issuedAt) {
+        Instant iat = issuedAt.truncatedTo(ChronoUnit.SECONDS);
+        return new VerifiedToken(TokenId.random(), username, userId(username), "USER", null, null,
+                iat, iat.plus(Duration.ofMinutes(15)));
+    }
+
+    private static UserEntity user(String username) {
+        UserEntity user = new UserEntity();
+        user.setId(userId(username));
+        user.setUsername(username);
+        return user;
+    }
+
+    private static long userId(String username) {
+        return username.hashCode();
+    }
+
+    // No session cap unless the test is about it
+    private TokenBlackListServiceImpl node() {
+        return node(new RevocationJournal(""), 0);
+    }
+
+    private TokenBlackListServiceImpl node(int maxSessionsPerUser) {
+        return node(new RevocationJournal(""), maxSessionsPerUser);
+    }
+
+    private TokenBlackListServiceImpl node(RevocationJournal journal) {
+        return node(journal, 0);
+    }
+
+    private TokenBlackListServiceImpl node(RevocationJournal journal, int maxSessionsPerUser) {
+        AuthRedisManager redisManager = new AuthRedisManager(redis.redisTemplate());
+        redisManagers.add(redisManager);
+        RedisRevocationStore store = new RedisRevocationStore(redisManager);
+        stores.add(store);
+        journals.add(journal);
+        // Alternate the table layouts, so nodes on either one have to agree
+        boolean offHeap = stores.size() % 2 == 0;
+        TokenBlackListServiceImpl service = new TokenBlackListServiceImpl(store, journal, new RevocationMetrics(),
+                Duration.ofMinutes(15), maxSessionsPerUser, offHeap, true, 4, 10_000, 0.001);
+        service.start();
+        return service;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 5s");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.projects.marketmosaic.service.impl;
+
+import com.projects.marketmosaic.common.dto.resp.BaseRespDTO;
+import com.projects.marketmosaic.entity.UserEntity;
+import com.projects.marketmosaic.repositories.UserRepository;
+import com.projects.marketmosaic.service.RefreshTokenService;
+import com.projects.marketmosaic.service.TokenBlackListService;
+import com.projects.marketmosaic.utils.FileUtils;
+import com.projects.marketmosaic.utils.SecurityUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceImplTest {
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TokenBlackListService tokenBlackListService = mock(TokenBlackListService.class);
+    private final RefreshTokenService refreshTokenService = mock(RefreshTokenService.class);
+    private final SecurityUtils securityUtils = mock(SecurityUtils.class);
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final UserEntity user = new UserEntity();
+
+    private UserServiceImpl userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserServiceImpl(userRepository, tokenBlackListService, refreshTokenService,
+                mock(FileUtils.class), securityUtils, mock(PasswordEncoder.class));
+        user.setId(1L);
+        user.setUsername("jane.doe");
+        when(securityUtils.getUserByUsername("jane.doe")).thenReturn(user);
+    }
+
+    @Test
+    void deleteUser_UserWithRefreshToken_RevokesRefreshTokensBeforeDelete() {
+        // Act
+        BaseRespDTO response = userService.deleteUser("jane.doe", request);
+
+        // Assert
+        assertTrue(response.isStatus());
+        InOrder order = inOrder(refreshTokenService, userRepository, tokenBlackListService);
+        order.verify(refreshTokenService).revokeAll(user);
+        order.verify(userRepository).delete(user);
+        order.verify(userRepository).flush();
+        order.verify(tokenBlackListService).invalidateAllUserTokens(user);
+    }
+
+    @Test
+    void deleteUser_DeleteFails_LeavesSessionsAlone() {
+        // Arrange
+        doThrow(new DataIntegrityViolationException("fk_user")).when(userRepository).flush();
+
+        // Act
+        assertThrows(DataIntegrityViolationException.class, () -> userService.deleteUser("jane.doe", request));
+
+        // Assert
+        verify(tokenBlackListService, never()).invalidateAllUserTokens(any());
+    }
+}
@@ -0,0 +1,109 @@
+package com.projects.marketmosaic.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.marketmosaic.common.config.ZooKeeperConfig;
+import com.projects.marketmosaic.config.security.CustomUserDetails;
+import com.projects.marketmosaic.entity.UserEntity;
+import com.projects.marketmosaic.utils.jwt.JwtSigningKeys;
+import com.projects.marketmosaic.utils.jwt.TokenMinter;
+import com.projects.marketmosaic.utils.jwt.TokenProfile;
+import com.projects.marketmosaic.utils.jwt.VerifiedToken;
+import com.projects.marketmosaic.utils.jwt.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class JWTUtilsTokenProfileTest {
+    @Mock
+    private ZooKeeperConfig zooKeeperConfig;
+
+    @Mock
+    private ObjectProvider<CuratorFramework> curatorProvider;
+
+    private CustomUserDetails userDetails;
+    private UserEntity user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(zooKeeperConfig.getStringValueByKey("JWT_SECRET")).thenReturn("test-secret-test-secret-test-secret-0123");
+        when(zooKeeperConfig.getStringValueByKey("JWT_EXPIRATION")).thenReturn("900000");
+
+        user = new UserEntity();
+        user.setId(48213L);
+        user.setUsername("jane.doe");
+        user.setEmail("jane.doe@marketmosaic.example.com");
+        user.setName("Jane Doe");
+        user.setRole("SELLER");
+
+        userDetails = CustomUserDetails.builder().username(user.getUsername()).build();
+    }
+
+    @Test
+    void compactProfile_IsSmallerAndParsesToSameIdentity() {
+        // Arrange
+        JWTUtils standard = jwtUtils(TokenProfile.STANDARD);
+        JWTUtils compact = jwtUtils(TokenProfile.COMPACT);
+
+        // Act
+        String standardToken = standard.generateToken(userDetails, user);
+        String compactToken = compact.generateToken(userDetails, user);
+        VerifiedToken fromStandard = standard.verify(standardToken);
+        VerifiedToken fromCompact = standard.verify(compactToken);
+
+        // Assert
+        assertTrue(compactToken.length() < standardToken.length());
+        assertEquals(fromStandard.subject(), fromCompact.subject());
+        assertEquals(fromStandard.userId(), fromCompact.userId());
+        assertEquals(fromStandard.role(), fromCompact.role());
+        assertNull(fromCompact.email());
+        assertNull(fromCompact.name());
+    }
+
+    @Test
+    void generateToken_BothProfiles_CarryOnlyTheStandardIssuedAt() {
+        // Arrange
+        JWTUtils standard = jwtUtils(TokenProfile.STANDARD);
+        JWTUtils compact = jwtUtils(TokenProfile.COMPACT);
+        long before = System.currentTimeMillis() / 1000;
+
+        // Act
+        String standardToken = standard.generateToken(userDetails, user);
+        String compactToken = compact.generateToken(userDetails, user);
+        VerifiedToken fromStandard = standard.verify(standardToken);
+        VerifiedToken fromCompact = standard.verify(compactToken);
+
+        // Assert
+        long after = System.currentTimeMillis() / 1000;
+        assertTrue(fromStandard.issuedAt().getEpochSecond() >= before && fromStandard.issuedAt().getEpochSecond() <= after);
+        assertTrue(fromCompact.issuedAt().getEpochSecond() >= before && fromCompact.issuedAt().getEpochSecond() <= after);
+        assertFalse(payload(standardToken).contains("\"ims\""));
+        assertFalse(payload(compactToken).contains("\"ims\""));
+    }
+
+    private static String payload(String token) {
+        return new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]), StandardCharsets.UTF_8);
+    }
+
+    private JWTUtils jwtUtils(TokenProfile profile) {
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), 0, Duration.ofMinutes(1));
+        JwtSigningKeys signingKeys = new JwtSigningKeys(zooKeeperConfig, tokenCache, new ObjectMapper(),
+                curatorProvider, "HS256");
+        JWTUtils jwtUtils = new JWTUtils(zooKeeperConfig, tokenCache, signingKeys, new TokenMinter(signingKeys));
+        ReflectionTestUtils.setField(jwtUtils, "profile", profile);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+}
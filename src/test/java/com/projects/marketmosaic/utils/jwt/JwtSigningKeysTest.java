@@ -0,0 +1,203 @@
+package com.projects.marketmosaic.utils.jwt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.marketmosaic.common.config.ZooKeeperConfig;
+import com.projects.marketmosaic.config.security.CustomUserDetails;
+import com.projects.marketmosaic.entity.UserEntity;
+import com.projects.marketmosaic.utils.JWTUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtSigningKeysTest {
+    private static final String SECRET_A = "secret-a-secret-a-secret-a-secret-a-0123";
+    private static final String SECRET_B = "secret-b-secret-b-secret-b-secret-b-0123";
+
+    @Mock
+    private ObjectProvider<CuratorFramework> curatorProvider;
+
+    private UserEntity user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        user = new UserEntity();
+        user.setId(48213L);
+        user.setUsername("jane.doe");
+        user.setRole("SELLER");
+    }
+
+    @Test
+    void validate_KidAddedByReload_IsAcceptedRightAway() {
+        // Arrange
+        JWTUtils verifier = jwtUtils(ring("2025-09", key("2025-09", SECRET_A)));
+        String token = jwtUtils(ring("2025-10", key("2025-10", SECRET_B))).generateToken(userDetails(), user);
+        assertEquals(TokenValidationResult.Status.BAD_SIGNATURE, verifier.validate(token).status());
+
+        // Act
+        reload(verifier, ring("2025-09", key("2025-09", SECRET_A), key("2025-10", SECRET_B)));
+
+        // Assert
+        assertTrue(verifier.validate(token).isValid());
+    }
+
+    @Test
+    void validate_KeyReplacedByReload_ForgetsEarlierRejection() {
+        // Arrange
+        JWTUtils verifier = jwtUtils(ring("2025-10", key("2025-10", SECRET_A)));
+        String token = jwtUtils(ring("2025-10", key("2025-10", SECRET_B))).generateToken(userDetails(), user);
+        assertEquals(TokenValidationResult.Status.BAD_SIGNATURE, verifier.validate(token).status());
+
+        // Act
+        reload(verifier, ring("2025-10", key("2025-10", SECRET_B)));
+
+        // Assert
+        assertTrue(verifier.validate(token).isValid());
+    }
+
+    @Test
+    void validate_NoKidOnceJwtKeysIsConfigured_IsRejected() {
+        // Arrange
+        String token = jwtUtils(null, SECRET_A, false).generateToken(userDetails(), user);
+        JWTUtils verifier = jwtUtils(ring("2025-10", key("2025-10", SECRET_B)), SECRET_A, false);
+
+        // Act
+        TokenValidationResult result = verifier.validate(token);
+
+        // Assert
+        assertEquals(TokenValidationResult.Status.BAD_SIGNATURE, result.status());
+    }
+
+    @Test
+    void validate_NoKidWhileAcceptingLegacy_IsAccepted() {
+        // Arrange
+        String token = jwtUtils(null, SECRET_A, false).generateToken(userDetails(), user);
+        JWTUtils verifier = jwtUtils(ring("2025-10", key("2025-10", SECRET_B)), SECRET_A, true);
+
+        // Act
+        TokenValidationResult result = verifier.validate(token);
+
+        // Assert
+        assertTrue(result.isValid());
+        assertEquals("jane.doe", result.token().subject());
+    }
+
+    @Test
+    void validate_Es256Token_IsAccepted() throws Exception {
+        // Arrange
+        JWTUtils jwtUtils = jwtUtils(ring("2025-10", key("2025-10", ecKeyPair(), true)), "ES256");
+        String token = jwtUtils.generateToken(userDetails(), user);
+
+        // Act
+        TokenValidationResult result = jwtUtils.validate(token);
+
+        // Assert
+        assertTrue(result.isValid());
+        assertEquals("jane.doe", result.token().subject());
+    }
+
+    @Test
+    void validate_EdDsaToken_IsAccepted() throws Exception {
+        // Arrange
+        JWTUtils jwtUtils = jwtUtils(ring("2025-10", key("2025-10", KeyPairGenerator.getInstance("Ed25519")
+                .generateKeyPair(), true)), "EdDSA");
+        String token = jwtUtils.generateToken(userDetails(), user);
+
+        // Act
+        TokenValidationResult result = jwtUtils.validate(token);
+
+        // Assert
+        assertTrue(result.isValid());
+        assertEquals("jane.doe", result.token().subject());
+    }
+
+    @Test
+    void validate_Es256TokenFromUnknownKid_IsRejected() throws Exception {
+        // Arrange
+        KeyPair known = ecKeyPair();
+        JWTUtils verifier = jwtUtils(ring("2025-10", key("2025-10", known, true)), "ES256");
+        String token = jwtUtils(ring("2025-11", key("2025-10", known, false), key("2025-11", ecKeyPair(), true)), "ES256")
+                .generateToken(userDetails(), user);
+
+        // Act
+        TokenValidationResult result = verifier.validate(token);
+
+        // Assert
+        assertEquals(TokenValidationResult.Status.BAD_SIGNATURE, result.status());
+    }
+
+    private JWTUtils jwtUtils(String keys) {
+        return jwtUtils(keys, null, false);
+    }
+
+    private JWTUtils jwtUtils(String keys, String algorithm) {
+        return jwtUtils(keys, null, false, algorithm);
+    }
+
+    private JWTUtils jwtUtils(String keys, String secret, boolean acceptLegacy) {
+        return jwtUtils(keys, secret, acceptLegacy, "HS256");
+    }
+
+    private JWTUtils jwtUtils(String keys, String secret, boolean acceptLegacy, String algorithm) {
+        ZooKeeperConfig zooKeeperConfig = mock(ZooKeeperConfig.class);
+        when(zooKeeperConfig.getStringValueByKey("JWT_KEYS")).thenReturn(keys);
+        when(zooKeeperConfig.getStringValueByKey("JWT_SECRET")).thenReturn(secret);
+        when(zooKeeperConfig.getStringValueByKey("JWT_EXPIRATION")).thenReturn("900000");
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+        JwtSigningKeys signingKeys = new JwtSigningKeys(zooKeeperConfig, tokenCache, new ObjectMapper(),
+                curatorProvider, algorithm);
+        ReflectionTestUtils.setField(signingKeys, "acceptLegacy", acceptLegacy);
+        JWTUtils jwtUtils = new JWTUtils(zooKeeperConfig, tokenCache, signingKeys, new TokenMinter(signingKeys));
+        ReflectionTestUtils.setField(jwtUtils, "profile", TokenProfile.STANDARD);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    // Stands in for the ZooKeeper watch firing
+    private static void reload(JWTUtils jwtUtils, String keys) {
+        JwtSigningKeys signingKeys = (JwtSigningKeys) ReflectionTestUtils.getField(jwtUtils, "signingKeys");
+        ReflectionTestUtils.invokeMethod(signingKeys, "reload", (Object) keys.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private CustomUserDetails userDetails() {
+        return CustomUserDetails.builder().username(user.getUsername()).build();
+    }
+
+    private static String ring(String active, String... keys) {
+        return "{\"active\": \"" + active + "\", \"keys\": [" + String.join(", ", keys) + "]}";
+    }
+
+    private static String key(String kid, String secret) {
+        return "{\"kid\": \"" + kid + "\", \"secret\": \"" + secret + "\"}";
+    }
+
+    // Only the active entry needs its private key
+    private static String key(String kid, KeyPair keyPair, boolean withPrivateKey) {
+        Base64.Encoder encoder = Base64.getEncoder();
+        return "{\"kid\": \"" + kid + "\", \"publicKey\": \"" + encoder.encodeToString(keyPair.getPublic().getEncoded())
+                + (withPrivateKey ? "\", \"privateKey\": \"" + encoder.encodeToString(keyPair.getPrivate().getEncoded()) : "")
+                + "\"}";
+    }
+
+    private static KeyPair ecKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+}
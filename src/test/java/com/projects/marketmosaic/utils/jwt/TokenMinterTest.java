@@ -0,0 +1,114 @@
+package com.projects.marketmosaic.utils.jwt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.marketmosaic.common.config.ZooKeeperConfig;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+class TokenMinterTest {
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123";
+    private static final long ISSUED_AT = 1_760_000_000_123L;
+    private static final long EXPIRATION = ISSUED_AT + 900_000;
+
+    @Mock
+    private ZooKeeperConfig zooKeeperConfig;
+
+    @Mock
+    private ObjectProvider<CuratorFramework> curatorProvider;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(zooKeeperConfig.getStringValueByKey("JWT_SECRET")).thenReturn(SECRET);
+    }
+
+    @Test
+    void mint_StandardClaims_MatchesJjwtByteForByte() {
+        // Arrange
+        JwtSigningKeys signingKeys = signingKeys();
+        Map<String, Object> claims = standardClaims("Jane Doe");
+
+        // Act & Assert
+        assertEquals(jjwt(signingKeys, claims, "jane.doe"), new TokenMinter(signingKeys).mint(claims, "jane.doe", ISSUED_AT, EXPIRATION));
+    }
+
+    @Test
+    void mint_CompactClaims_MatchesJjwtByteForByte() {
+        // Arrange
+        JwtSigningKeys signingKeys = signingKeys();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put(TokenClaims.COMPACT_USER_ID, 48213L);
+        claims.put(TokenClaims.COMPACT_ROLE, TokenClaims.encodeRole("SELLER"));
+
+        // Act & Assert
+        assertEquals(jjwt(signingKeys, claims, "jane.doe"), new TokenMinter(signingKeys).mint(claims, "jane.doe", ISSUED_AT, EXPIRATION));
+    }
+
+    @Test
+    void mint_EscapedAndNonAsciiValues_MatchJjwtByteForByte() {
+        // Arrange
+        JwtSigningKeys signingKeys = signingKeys();
+        Map<String, Object> claims = standardClaims("Zo\u00eb \"Q\" O'Brien\\\t\u0001 /\u65e5\u672c");
+        claims.put(TokenClaims.EMAIL, null);
+
+        // Act & Assert
+        assertEquals(jjwt(signingKeys, claims, "zo\u00eb"), new TokenMinter(signingKeys).mint(claims, "zo\u00eb", ISSUED_AT, EXPIRATION));
+    }
+
+    @Test
+    void mint_KeyRingWithKid_MatchesJjwtByteForByte() {
+        // Arrange
+        when(zooKeeperConfig.getStringValueByKey("JWT_KEYS")).thenReturn("""
+                {"active": "2025-10", "keys": [
+                    {"kid": "2025-09", "secret": "%s"},
+                    {"kid": "2025-10", "secret": "%s"}]}
+                """.formatted(SECRET, SECRET.repeat(2)));
+        JwtSigningKeys signingKeys = signingKeys();
+        Map<String, Object> claims = standardClaims("Jane Doe");
+
+        // Act & Assert
+        assertEquals(jjwt(signingKeys, claims, "jane.doe"), new TokenMinter(signingKeys).mint(claims, "jane.doe", ISSUED_AT, EXPIRATION));
+    }
+
+    private JwtSigningKeys signingKeys() {
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), 0, Duration.ofMinutes(1));
+        return new JwtSigningKeys(zooKeeperConfig, tokenCache, new ObjectMapper(), curatorProvider, "HS256");
+    }
+
+    private static Map<String, Object> standardClaims(String name) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put(TokenClaims.USER_ID, 48213L);
+        claims.put(TokenClaims.EMAIL, "jane.doe@marketmosaic.example.com");
+        claims.put(TokenClaims.NAME, name);
+        claims.put(TokenClaims.ROLE, "SELLER");
+        return claims;
+    }
+
+    private static String jjwt(JwtSigningKeys signingKeys, Map<String, Object> claims, String subject) {
+        JwtBuilder builder = Jwts.builder()
+                .claims(claims)
+                .subject(subject)
+                .issuedAt(new Date(ISSUED_AT))
+                .expiration(new Date(EXPIRATION));
+        JwtSigningKeys.SigningKey signingKey = signingKeys.getSigningKey();
+        if (signingKey.keyId() != null) {
+            builder.header().keyId(signingKey.keyId());
+        }
+        return builder.signWith(signingKey.key()).compact();
+    }
+}
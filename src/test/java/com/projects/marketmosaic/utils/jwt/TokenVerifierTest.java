@@ -0,0 +1,151 @@
+package com.projects.marketmosaic.utils.jwt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.marketmosaic.common.config.ZooKeeperConfig;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+class TokenVerifierTest {
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123";
+
+    @Mock
+    private ZooKeeperConfig zooKeeperConfig;
+
+    @Mock
+    private ObjectProvider<CuratorFramework> curatorProvider;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(zooKeeperConfig.getStringValueByKey("JWT_SECRET")).thenReturn(SECRET);
+    }
+
+    @Test
+    void check_HmacToken_IsVerified() {
+        // Arrange
+        JwtSigningKeys signingKeys = signingKeys("HS256");
+
+        // Act & Assert
+        assertEquals(TokenVerifier.Outcome.VERIFIED, new TokenVerifier(signingKeys).check(mint(signingKeys, 60_000)));
+    }
+
+    @Test
+    void check_TamperedSignature_IsBadSignature() {
+        // Arrange
+        JwtSigningKeys signingKeys = signingKeys("HS256");
+        String token = tamper(mint(signingKeys, 60_000));
+
+        // Act & Assert
+        assertEquals(TokenVerifier.Outcome.BAD_SIGNATURE, new TokenVerifier(signingKeys).check(token));
+    }
+
+    @Test
+    void check_ExpiredTokenWithBadSignature_IsExpiredBeforeSignatureCheck() {
+        // Arrange
+        JwtSigningKeys signingKeys = signingKeys("HS256");
+        String token = tamper(mint(signingKeys, -60_000));
+
+        // Act & Assert
+        assertEquals(TokenVerifier.Outcome.EXPIRED, new TokenVerifier(signingKeys).check(token));
+    }
+
+    @Test
+    void check_UnknownKid_IsUnknownKey() {
+        // Arrange
+        when(zooKeeperConfig.getStringValueByKey("JWT_KEYS")).thenReturn(ring("2025-10", "{\"kid\": \"2025-10\", \"secret\": \"" + SECRET + "\"}"));
+        JwtSigningKeys signingKeys = signingKeys("HS256");
+        String token = Jwts.builder()
+                .header().keyId("2024-01").and()
+                .subject("jane.doe")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(signingKeys.getSigningKey().key())
+                .compact();
+
+        // Act & Assert
+        assertEquals(TokenVerifier.Outcome.UNKNOWN_KEY, new TokenVerifier(signingKeys).check(token));
+    }
+
+    @Test
+    void check_Es256Token_IsVerifiedAndTamperingIsCaught() throws Exception {
+        // Arrange
+        KeyPair keyPair = ecKeyPair();
+        Base64.Encoder encoder = Base64.getEncoder();
+        when(zooKeeperConfig.getStringValueByKey("JWT_KEYS")).thenReturn(ring("2025-10",
+                "{\"kid\": \"2025-10\", \"publicKey\": \"" + encoder.encodeToString(keyPair.getPublic().getEncoded())
+                        + "\", \"privateKey\": \"" + encoder.encodeToString(keyPair.getPrivate().getEncoded()) + "\"}"));
+        JwtSigningKeys signingKeys = signingKeys("ES256");
+        String token = jjwt(signingKeys, 60_000);
+        TokenVerifier verifier = new TokenVerifier(signingKeys);
+
+        // Act & Assert
+        assertEquals(TokenVerifier.Outcome.VERIFIED, verifier.check(token));
+        assertEquals(TokenVerifier.Outcome.BAD_SIGNATURE, verifier.check(tamper(token)));
+    }
+
+    @Test
+    void check_PayloadThatIsNotJson_IsMalformed() {
+        // Arrange
+        JwtSigningKeys signingKeys = signingKeys("HS256");
+        String token = mint(signingKeys, 60_000);
+        String[] segments = token.split("\\.");
+        String notJson = Base64.getUrlEncoder().withoutPadding().encodeToString("not a claim set".getBytes());
+
+        // Act & Assert
+        assertEquals(TokenVerifier.Outcome.MALFORMED,
+                new TokenVerifier(signingKeys).check(segments[0] + "." + notJson + "." + segments[2]));
+    }
+
+    private JwtSigningKeys signingKeys(String algorithm) {
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), 0, Duration.ofMinutes(1));
+        return new JwtSigningKeys(zooKeeperConfig, tokenCache, new ObjectMapper(), curatorProvider, algorithm);
+    }
+
+    private static String mint(JwtSigningKeys signingKeys, long expiresInMillis) {
+        long now = System.currentTimeMillis();
+        return new TokenMinter(signingKeys).mint(Map.of(TokenClaims.ROLE, "SELLER"), "jane.doe", now, now + expiresInMillis);
+    }
+
+    private static String jjwt(JwtSigningKeys signingKeys, long expiresInMillis) {
+        JwtBuilder builder = Jwts.builder()
+                .subject("jane.doe")
+                .expiration(new Date(System.currentTimeMillis() + expiresInMillis));
+        builder.header().keyId(signingKeys.getSigningKey().keyId());
+        return builder.signWith(signingKeys.getSigningKey().key()).compact();
+    }
+
+    // Flips one bit in the first signature byte, keeping the token well formed
+    private static String tamper(String token) {
+        int signatureStart = token.lastIndexOf('.') + 1;
+        char first = token.charAt(signatureStart);
+        char flipped = first == 'A' ? 'Q' : 'A';
+        return token.substring(0, signatureStart) + flipped + token.substring(signatureStart + 1);
+    }
+
+    private static String ring(String active, String... keys) {
+        return "{\"active\": \"" + active + "\", \"keys\": [" + String.join(", ", keys) + "]}";
+    }
+
+    private static KeyPair ecKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+}